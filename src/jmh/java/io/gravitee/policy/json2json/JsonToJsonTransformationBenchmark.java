@@ -0,0 +1,181 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.policy.json2json;
+
+import io.gravitee.common.http.MediaType;
+import io.gravitee.el.TemplateEngine;
+import io.gravitee.gateway.api.buffer.Buffer;
+import io.gravitee.gateway.api.http.HttpHeaderNames;
+import io.gravitee.gateway.api.http.HttpHeaders;
+import io.gravitee.gateway.reactive.api.message.DefaultMessage;
+import io.gravitee.gateway.reactive.api.message.Message;
+import io.gravitee.gateway.reactive.api.message.kafka.KafkaMessage;
+import io.gravitee.policy.json2json.configuration.JsonToJsonTransformationPolicyConfiguration;
+import io.gravitee.policy.json2json.configuration.TransformationEngine;
+import io.gravitee.policy.test.KafkaMessageStub;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.reactivex.rxjava3.core.Maybe;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of {@link JsonToJsonTransformationPolicy#applyJoltTransform} through each {@link MessageWrapper}.
+ *
+ * Throughput and latency percentiles (sample mode) are reported for each payload size, operation, kind of specification and engine.
+ * Allocation rate is reported by the <code>gc</code> profiler enabled by default by the <code>benchmark</code> Maven profile.
+ *
+ * The default parameters are a representative subset, about 30 minutes per run. Any other value of a parameter, among
+ * <code>100KB</code> and <code>10MB</code> payloads, the <code>default</code>, <code>remove</code> and <code>cardinality</code>
+ * operations and <code>EL</code> specifications, is selected with <code>-p</code>:
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:exec
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.args="-prof gc -p payloadSize=1MB -p operation=shift httpBody"
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.args="-prof gc -p payloadSize=1KB,100KB,1MB,10MB -p specification=STATIC,EL"
+ * </pre>
+ *
+ * @author GraviteeSource Team
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = { "-Xms2g", "-Xmx2g" })
+public class JsonToJsonTransformationBenchmark {
+
+    @Param({ "1KB", "1MB" })
+    public String payloadSize;
+
+    @Param({ "shift", "modify" })
+    public String operation;
+
+    @Param({ "STATIC" })
+    public String specification;
+
+    @Param({ "JOLT", "COMPILED" })
+    public String engine;
+
+    private JsonToJsonTransformationPolicy policy;
+    private TransformationMetrics.Meters meters;
+    private JsonMediaTypes jsonMediaTypes;
+    private TemplateEngine templateEngine;
+    private Buffer payload;
+    private Maybe<Buffer> body;
+    private HttpHeaders headers;
+    private Message message;
+    private KafkaMessage kafkaMessage;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        policy = new JsonToJsonTransformationPolicy(
+            JsonToJsonTransformationPolicyConfiguration.builder()
+                .specification(specification(operation, "EL".equals(specification)))
+                .engine(TransformationEngine.valueOf(engine))
+                .build(),
+            new SimpleMeterRegistry()
+        );
+        meters = policy.metrics().of("benchmark", TransformationMetrics.Scope.REQUEST);
+        jsonMediaTypes = new JsonMediaTypes(null);
+        templateEngine = TemplateEngine.templateEngine();
+        templateEngine.getTemplateContext().setVariable("tenant", "gravitee");
+
+        payload = Buffer.buffer(payload(parseSize(payloadSize)));
+        body = Maybe.just(payload);
+        headers = HttpHeaders.create();
+        headers.set(HttpHeaderNames.CONTENT_TYPE, MediaType.APPLICATION_JSON);
+        message = DefaultMessage.builder().headers(HttpHeaders.create()).content(payload).build();
+        kafkaMessage = new KafkaMessageStub("");
+    }
+
+    @Benchmark
+    public Buffer httpBody() {
+        return policy
+            .applyJoltTransform(() -> templateEngine, new HttpBodyWrapper(body, headers, true, jsonMediaTypes), meters)
+            .blockingGet();
+    }
+
+    @Benchmark
+    public Message httpMessage() {
+        message.content(payload);
+        return policy
+            .applyJoltTransform(() -> templateEngine, new HttpMessageWrapper<>(message, true, jsonMediaTypes), meters)
+            .blockingGet();
+    }
+
+    @Benchmark
+    public KafkaMessage kafkaMessage() {
+        kafkaMessage.content(payload);
+        return policy
+            .applyJoltTransform(() -> templateEngine, new KafkaMessageWrapper(kafkaMessage, true, jsonMediaTypes), meters)
+            .blockingGet();
+    }
+
+    static String specification(final String operation, final boolean withEl) {
+        final String spec =
+            switch (operation) {
+                case "shift" -> "{ \"operation\": \"shift\", \"spec\": { \"items\": { \"*\": { \"id\": \"products[&1].ref\", \"name\": \"products[&1].label\", \"price\": \"products[&1].amount\" } } } }";
+                case "default" -> "{ \"operation\": \"default\", \"spec\": { \"items[]\": { \"*\": { \"currency\": \"EUR\", \"stock\": 0 } } } }";
+                case "remove" -> "{ \"operation\": \"remove\", \"spec\": { \"items\": { \"*\": { \"internal\": \"\" } } } }";
+                case "cardinality" -> "{ \"operation\": \"cardinality\", \"spec\": { \"items\": { \"*\": { \"tags\": \"ONE\" } } } }";
+                case "modify" -> "{ \"operation\": \"modify-overwrite-beta\", \"spec\": { \"items\": { \"*\": { \"name\": \"=toUpper\" } } } }";
+                default -> throw new IllegalArgumentException("Unknown operation " + operation);
+            };
+        if (withEl) {
+            return "[" + spec + ", { \"operation\": \"default\", \"spec\": { \"tenant\": \"{#tenant}\" } }]";
+        }
+        return "[" + spec + "]";
+    }
+
+    static String payload(final int size) {
+        final StringBuilder json = new StringBuilder(size + 256).append("{\"items\":[");
+        int i = 0;
+        while (json.length() < size) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json
+                .append("{\"id\":")
+                .append(i)
+                .append(",\"name\":\"item-")
+                .append(i)
+                .append("\",\"price\":")
+                .append(i * 1.5)
+                .append(",\"tags\":[\"new\",\"promo\"],\"internal\":{\"secret\":\"s3cr3t\",\"revision\":")
+                .append(i % 7)
+                .append("}}");
+            i++;
+        }
+        return json.append("]}").toString();
+    }
+
+    private static int parseSize(final String size) {
+        if (size.endsWith("MB")) {
+            return Integer.parseInt(size.substring(0, size.length() - 2)) * 1024 * 1024;
+        }
+        return Integer.parseInt(size.substring(0, size.length() - 2)) * 1024;
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.policy.json2json;
+
+import io.gravitee.common.http.MediaType;
+import io.gravitee.gateway.api.buffer.Buffer;
+import io.gravitee.gateway.api.http.HttpHeaderNames;
+import io.gravitee.gateway.api.http.HttpHeaders;
+import io.netty.buffer.ByteBuf;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Updates of the Content-Length and Content-Type headers of transformed payloads, skipping the ones that would not change the header and
+ * without formatting the values when comparing them.
+ *
+ * @author GraviteeSource Team
+ */
+final class HeaderValues {
+
+    private static final byte[] APPLICATION_JSON = MediaType.APPLICATION_JSON.getBytes(StandardCharsets.US_ASCII);
+
+    private HeaderValues() {}
+
+    static void setContentLength(final HttpHeaders headers, final int length) {
+        if (!isDecimal(headers.get(HttpHeaderNames.CONTENT_LENGTH), length)) {
+            headers.set(HttpHeaderNames.CONTENT_LENGTH, Integer.toString(length));
+        }
+    }
+
+    static void setJsonContentType(final HttpHeaders headers) {
+        if (!MediaType.APPLICATION_JSON.equals(headers.get(HttpHeaderNames.CONTENT_TYPE))) {
+            headers.set(HttpHeaderNames.CONTENT_TYPE, MediaType.APPLICATION_JSON);
+        }
+    }
+
+    /**
+     * @return the Content-Length record header, encoded as ASCII digits, or <code>null</code> if the current header already has this value.
+     */
+    static Buffer contentLength(final Map<String, Buffer> recordHeaders, final int length) {
+        final Buffer current = recordHeaders.get(HttpHeaderNames.CONTENT_LENGTH);
+        if (current != null && isDecimal(current.getNativeBuffer(), length)) {
+            return null;
+        }
+        final byte[] digits = new byte[digitCount(length)];
+        int value = length;
+        for (int i = digits.length - 1; i >= 0; i--) {
+            digits[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        return Buffer.buffer(digits);
+    }
+
+    /**
+     * @return the <code>application/json</code> Content-Type record header, or <code>null</code> if it is already the current one.
+     */
+    static Buffer jsonContentType(final Map<String, Buffer> recordHeaders) {
+        final Buffer current = recordHeaders.get(HttpHeaderNames.CONTENT_TYPE);
+        if (current != null && isApplicationJson(current.getNativeBuffer())) {
+            return null;
+        }
+        // Wraps the shared encoded value, never written to
+        return Buffer.buffer(APPLICATION_JSON);
+    }
+
+    static boolean isDecimal(final CharSequence value, final int number) {
+        if (value == null || value.length() != digitCount(number)) {
+            return false;
+        }
+        int remaining = number;
+        for (int i = value.length() - 1; i >= 0; i--) {
+            if (value.charAt(i) != '0' + remaining % 10) {
+                return false;
+            }
+            remaining /= 10;
+        }
+        return true;
+    }
+
+    private static boolean isDecimal(final ByteBuf value, final int number) {
+        if (value == null || value.readableBytes() != digitCount(number)) {
+            return false;
+        }
+        int remaining = number;
+        for (int i = value.readableBytes() - 1; i >= 0; i--) {
+            if (value.getByte(value.readerIndex() + i) != '0' + remaining % 10) {
+                return false;
+            }
+            remaining /= 10;
+        }
+        return true;
+    }
+
+    private static boolean isApplicationJson(final ByteBuf value) {
+        if (value == null || value.readableBytes() != APPLICATION_JSON.length) {
+            return false;
+        }
+        for (int i = 0; i < APPLICATION_JSON.length; i++) {
+            if (value.getByte(value.readerIndex() + i) != APPLICATION_JSON[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int digitCount(final int number) {
+        int count = 1;
+        for (int value = number; value >= 10; value /= 10) {
+            count++;
+        }
+        return count;
+    }
+}
@@ -15,30 +15,50 @@
  */
 package io.gravitee.policy.json2json;
 
-import io.gravitee.common.http.MediaType;
 import io.gravitee.gateway.api.buffer.Buffer;
 import io.gravitee.gateway.api.http.HttpHeaderNames;
 import io.gravitee.gateway.api.http.HttpHeaders;
 import io.reactivex.rxjava3.core.Maybe;
-import java.util.Optional;
 
 class HttpBodyWrapper implements MessageWrapper<Buffer> {
 
     private final Maybe<Buffer> body;
     private final HttpHeaders headers;
     private final boolean overrideContentType;
+    private final JsonMediaTypes jsonMediaTypes;
+    private final boolean cacheable;
 
-    HttpBodyWrapper(final Maybe<Buffer> body, final HttpHeaders headers, final boolean overrideContentType) {
+    HttpBodyWrapper(
+        final Maybe<Buffer> body,
+        final HttpHeaders headers,
+        final boolean overrideContentType,
+        final JsonMediaTypes jsonMediaTypes
+    ) {
+        this(body, headers, overrideContentType, jsonMediaTypes, false);
+    }
+
+    HttpBodyWrapper(
+        final Maybe<Buffer> body,
+        final HttpHeaders headers,
+        final boolean overrideContentType,
+        final JsonMediaTypes jsonMediaTypes,
+        final boolean cacheable
+    ) {
         this.body = body;
         this.headers = headers;
         this.overrideContentType = overrideContentType;
+        this.jsonMediaTypes = jsonMediaTypes;
+        this.cacheable = cacheable;
     }
 
     @Override
     public boolean isJsonContentType() {
-        return Optional.ofNullable(headers.get(HttpHeaderNames.CONTENT_TYPE))
-            .map(v -> v.toLowerCase().contains("json"))
-            .orElse(false);
+        return isJsonContentType(headers, jsonMediaTypes);
+    }
+
+    static boolean isJsonContentType(final HttpHeaders headers, final JsonMediaTypes jsonMediaTypes) {
+        final String contentType = headers.get(HttpHeaderNames.CONTENT_TYPE);
+        return contentType != null && jsonMediaTypes.isJson(contentType);
     }
 
     @Override
@@ -46,15 +66,37 @@ class HttpBodyWrapper implements MessageWrapper<Buffer> {
         return body;
     }
 
+    @Override
+    public long declaredLength() {
+        return declaredLength(headers);
+    }
+
+    static long declaredLength(final HttpHeaders headers) {
+        final String contentLength = headers.get(HttpHeaderNames.CONTENT_LENGTH);
+        if (contentLength == null) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(contentLength);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
     @Override
     public Buffer withContent(final Buffer content) {
-        headers.set(HttpHeaderNames.CONTENT_LENGTH, Integer.toString(content.length()));
+        HeaderValues.setContentLength(headers, content.length());
         if (overrideContentType) {
-            headers.set(HttpHeaderNames.CONTENT_TYPE, MediaType.APPLICATION_JSON);
+            HeaderValues.setJsonContentType(headers);
         }
         return content;
     }
 
+    @Override
+    public Buffer original(final Buffer content) {
+        return content;
+    }
+
     @Override
     public Maybe<Buffer> unchanged() {
         return body;
@@ -64,4 +106,9 @@ class HttpBodyWrapper implements MessageWrapper<Buffer> {
     public Maybe<Buffer> emptyContent() {
         return Maybe.empty();
     }
+
+    @Override
+    public boolean isCacheable() {
+        return cacheable;
+    }
 }
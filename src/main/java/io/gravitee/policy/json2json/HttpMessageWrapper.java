@@ -15,28 +15,27 @@
  */
 package io.gravitee.policy.json2json;
 
-import io.gravitee.common.http.MediaType;
 import io.gravitee.gateway.api.buffer.Buffer;
 import io.gravitee.gateway.api.http.HttpHeaderNames;
 import io.gravitee.gateway.reactive.api.message.Message;
 import io.reactivex.rxjava3.core.Maybe;
-import java.util.Optional;
 
 class HttpMessageWrapper<T extends Message> implements MessageWrapper<T> {
 
     private final T message;
     private final boolean overrideContentType;
+    private final JsonMediaTypes jsonMediaTypes;
 
-    HttpMessageWrapper(final T message, final boolean overrideContentType) {
+    HttpMessageWrapper(final T message, final boolean overrideContentType, final JsonMediaTypes jsonMediaTypes) {
         this.message = message;
         this.overrideContentType = overrideContentType;
+        this.jsonMediaTypes = jsonMediaTypes;
     }
 
     @Override
     public boolean isJsonContentType() {
-        return Optional.ofNullable(message.headers().get(HttpHeaderNames.CONTENT_TYPE))
-            .map(v -> v.toLowerCase().contains("json"))
-            .orElse(true);
+        final String contentType = message.headers().get(HttpHeaderNames.CONTENT_TYPE);
+        return contentType == null || jsonMediaTypes.isJson(contentType);
     }
 
     @Override
@@ -44,16 +43,27 @@ class HttpMessageWrapper<T extends Message> implements MessageWrapper<T> {
         return Maybe.fromCallable(message::content);
     }
 
+    @Override
+    public long declaredLength() {
+        final Buffer content = message.content();
+        return content != null ? content.length() : -1;
+    }
+
     @Override
     @SuppressWarnings("unchecked")
     public T withContent(final Buffer content) {
-        message.headers().set(HttpHeaderNames.CONTENT_LENGTH, Integer.toString(content.length()));
+        HeaderValues.setContentLength(message.headers(), content.length());
         if (overrideContentType) {
-            message.headers().set(HttpHeaderNames.CONTENT_TYPE, MediaType.APPLICATION_JSON);
+            HeaderValues.setJsonContentType(message.headers());
         }
         return (T) message.content(content);
     }
 
+    @Override
+    public T original(final Buffer content) {
+        return message;
+    }
+
     @Override
     public Maybe<T> unchanged() {
         return Maybe.just(message);
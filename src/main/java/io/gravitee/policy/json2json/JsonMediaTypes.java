@@ -0,0 +1,131 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.policy.json2json;
+
+import io.gravitee.gateway.api.buffer.Buffer;
+import io.netty.buffer.ByteBuf;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tell whether a <code>Content-Type</code> designates JSON: <code>application/json</code>, any <code>+json</code> structured syntax
+ * suffix, or one of the configured additional media types. Parameters such as <code>charset</code> are ignored and the comparison is case
+ * insensitive.
+ *
+ * The outcome for header values is cached, headers encoded as bytes are matched in place, without decoding them.
+ *
+ * @author GraviteeSource Team
+ */
+class JsonMediaTypes {
+
+    private static final int MAX_CACHED_VALUES = 256;
+    private static final byte[] APPLICATION_JSON = "application/json".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] JSON_SUFFIX = "+json".getBytes(StandardCharsets.US_ASCII);
+
+    private final byte[][] additionalMediaTypes;
+    private final Map<String, Boolean> cache = new ConcurrentHashMap<>();
+
+    JsonMediaTypes(final List<String> additionalMediaTypes) {
+        this.additionalMediaTypes = additionalMediaTypes == null
+            ? new byte[0][]
+            : additionalMediaTypes
+                .stream()
+                .filter(mediaType -> mediaType != null && !mediaType.isBlank())
+                .map(mediaType -> mediaType.trim().toLowerCase(Locale.ROOT).getBytes(StandardCharsets.US_ASCII))
+                .toArray(byte[][]::new);
+    }
+
+    boolean isJson(final String contentType) {
+        final Boolean cached = cache.get(contentType);
+        if (cached != null) {
+            return cached;
+        }
+        final byte[] bytes = contentType.getBytes(StandardCharsets.ISO_8859_1);
+        final boolean json = isJson(bytes, 0, bytes.length);
+        if (cache.size() < MAX_CACHED_VALUES) {
+            cache.put(contentType, json);
+        }
+        return json;
+    }
+
+    boolean isJson(final Buffer contentType) {
+        final Object nativeBuffer = contentType.getNativeBuffer();
+        if (nativeBuffer instanceof ByteBuf && ((ByteBuf) nativeBuffer).hasArray()) {
+            final ByteBuf byteBuf = (ByteBuf) nativeBuffer;
+            final int offset = byteBuf.arrayOffset() + byteBuf.readerIndex();
+            return isJson(byteBuf.array(), offset, offset + byteBuf.readableBytes());
+        }
+        return isJson(contentType.toString());
+    }
+
+    private boolean isJson(final byte[] value, final int from, final int to) {
+        int start = from;
+        int end = from;
+        while (end < to && value[end] != ';') {
+            end++;
+        }
+        while (start < end && isWhitespace(value[start])) {
+            start++;
+        }
+        while (end > start && isWhitespace(value[end - 1])) {
+            end--;
+        }
+
+        if (equalsIgnoreCase(value, start, end, APPLICATION_JSON)) {
+            return true;
+        }
+        // A structured syntax suffix requires a type and a subtype, e.g. application/problem+json
+        if (end - start > JSON_SUFFIX.length && equalsIgnoreCase(value, end - JSON_SUFFIX.length, end, JSON_SUFFIX)) {
+            for (int i = start; i < end - JSON_SUFFIX.length; i++) {
+                if (value[i] == '/') {
+                    return true;
+                }
+            }
+        }
+        for (byte[] mediaType : additionalMediaTypes) {
+            if (equalsIgnoreCase(value, start, end, mediaType)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param lowerCase expected value, in lower case ASCII
+     */
+    private static boolean equalsIgnoreCase(final byte[] value, final int start, final int end, final byte[] lowerCase) {
+        if (end - start != lowerCase.length) {
+            return false;
+        }
+        for (int i = 0; i < lowerCase.length; i++) {
+            byte b = value[start + i];
+            if (b >= 'A' && b <= 'Z') {
+                b += 'a' - 'A';
+            }
+            if (b != lowerCase[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isWhitespace(final byte b) {
+        return b == ' ' || b == '\t';
+    }
+}
@@ -16,22 +16,38 @@
 package io.gravitee.policy.json2json;
 
 import com.bazaarvoice.jolt.Chainr;
-import com.bazaarvoice.jolt.JsonUtils;
+import io.gravitee.common.http.HttpMethod;
 import io.gravitee.el.TemplateEngine;
 import io.gravitee.gateway.api.buffer.Buffer;
+import io.gravitee.gateway.api.http.HttpHeaderNames;
 import io.gravitee.gateway.api.http.HttpHeaders;
 import io.gravitee.gateway.reactive.api.ExecutionFailure;
+import io.gravitee.gateway.reactive.api.context.ContextAttributes;
 import io.gravitee.gateway.reactive.api.context.http.HttpMessageExecutionContext;
 import io.gravitee.gateway.reactive.api.context.http.HttpPlainExecutionContext;
+import io.gravitee.gateway.reactive.api.context.kafka.KafkaExecutionContext;
 import io.gravitee.gateway.reactive.api.context.kafka.KafkaMessageExecutionContext;
 import io.gravitee.gateway.reactive.api.message.Message;
 import io.gravitee.gateway.reactive.api.message.kafka.KafkaMessage;
 import io.gravitee.gateway.reactive.api.policy.http.HttpPolicy;
 import io.gravitee.gateway.reactive.api.policy.kafka.KafkaPolicy;
+import io.gravitee.policy.json2json.TransformationMetrics.Meters;
+import io.gravitee.policy.json2json.TransformationMetrics.Scope;
 import io.gravitee.policy.json2json.configuration.JsonToJsonTransformationPolicyConfiguration;
+import io.gravitee.policy.json2json.configuration.OversizeAction;
+import io.gravitee.policy.json2json.jolt.JsonArrayStreamTransformer;
 import io.gravitee.policy.v3.json2json.JsonToJsonTransformationPolicyV3;
+import io.micrometer.core.instrument.MeterRegistry;
 import io.reactivex.rxjava3.core.Completable;
+import io.reactivex.rxjava3.core.Flowable;
 import io.reactivex.rxjava3.core.Maybe;
+import io.reactivex.rxjava3.core.Single;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 
 /**
  * @author David BRASSELY (david.brassely at graviteesource.com)
@@ -39,10 +55,40 @@ import io.reactivex.rxjava3.core.Maybe;
  */
 public class JsonToJsonTransformationPolicy extends JsonToJsonTransformationPolicyV3 implements HttpPolicy, KafkaPolicy {
 
-    private static final String INVALID_JSON_TRANSFORMATION = "JSON_INVALID_SPECIFICATION";
+    static final String INVALID_JSON_TRANSFORMATION = "JSON_INVALID_SPECIFICATION";
+    static final String PAYLOAD_TOO_LARGE = "JSON_PAYLOAD_TOO_LARGE";
+    static final String TRANSFORMATION_REJECTED = "JSON_TRANSFORMATION_REJECTED";
+    private static final String CHUNKED = "chunked";
+    // Built once: a misconfigured specification fails every execution the same way
+    private static final ExecutionFailure INVALID_TRANSFORMATION_FAILURE = new ExecutionFailure(500)
+        .key(INVALID_JSON_TRANSFORMATION)
+        .message("Unable to apply JOLT transformation to payload");
+
+    private final TransformationMetrics metrics;
+    private final JsonMediaTypes jsonMediaTypes;
+    private final TransformationExecutor executor;
+    private final TransformationExecutor messageExecutor;
+    private final ResultCache resultCache;
 
     public JsonToJsonTransformationPolicy(final JsonToJsonTransformationPolicyConfiguration configuration) {
+        this(configuration, TransformationMetrics.gatewayRegistry());
+    }
+
+    JsonToJsonTransformationPolicy(final JsonToJsonTransformationPolicyConfiguration configuration, final MeterRegistry registry) {
         super(configuration);
+        this.executor = TransformationExecutor.of(configuration);
+        this.messageExecutor = isMessageConcurrencyEnabled() ? TransformationExecutor.forMessages(configuration) : executor;
+        // The message executor is the body executor unless it is the only one handing payloads to worker threads
+        this.metrics = new TransformationMetrics(registry, specification, messageExecutor);
+        this.jsonMediaTypes = new JsonMediaTypes(configuration.getAdditionalJsonContentTypes());
+        this.resultCache = specification.isStatic() ? ResultCache.of(configuration, registry, specification.hash()) : null;
+    }
+
+    /**
+     * Package-private for <code>JsonToJsonTransformationBenchmark</code>, which records phases on the meters of the policy.
+     */
+    TransformationMetrics metrics() {
+        return metrics;
     }
 
     @Override
@@ -52,82 +98,432 @@ public class JsonToJsonTransformationPolicy extends JsonToJsonTransformationPoli
 
     @Override
     public Completable onRequest(HttpPlainExecutionContext ctx) {
-        return ctx.request().onBody(body -> transformBody(ctx, body, ctx.request().headers()));
+        final Meters meters = metrics.of(ctx.getAttribute(ContextAttributes.ATTR_API), Scope.REQUEST);
+        if (streaming) {
+            return ctx.request().onChunks(chunks -> transformChunks(ctx, chunks, ctx.request().headers(), meters));
+        }
+        return ctx.request().onBody(body -> transformBody(ctx, body, ctx.request().headers(), meters, false));
     }
 
     @Override
     public Completable onResponse(HttpPlainExecutionContext ctx) {
-        return ctx.response().onBody(body -> transformBody(ctx, body, ctx.response().headers()));
+        final Meters meters = metrics.of(ctx.getAttribute(ContextAttributes.ATTR_API), Scope.RESPONSE);
+        if (streaming) {
+            return ctx.response().onChunks(chunks -> transformChunks(ctx, chunks, ctx.response().headers(), meters));
+        }
+        final boolean cacheable = resultCache != null && ctx.request().method() == HttpMethod.GET;
+        return ctx.response().onBody(body -> transformBody(ctx, body, ctx.response().headers(), meters, cacheable));
     }
 
     @Override
     public Completable onMessageRequest(HttpMessageExecutionContext ctx) {
-        return ctx.request().onMessage(message -> transformMessage(ctx, message));
+        final Meters meters = metrics.of(ctx.getAttribute(ContextAttributes.ATTR_API), Scope.MESSAGE_REQUEST);
+        if (isMessageConcurrencyEnabled()) {
+            return ctx.request().onMessages(messages -> transformConcurrently(ctx, messages, meters));
+        }
+        return ctx.request().onMessage(message -> transformMessage(ctx, message, meters));
     }
 
     @Override
     public Completable onMessageResponse(HttpMessageExecutionContext ctx) {
-        return ctx.response().onMessage(message -> transformMessage(ctx, message));
+        final Meters meters = metrics.of(ctx.getAttribute(ContextAttributes.ATTR_API), Scope.MESSAGE_RESPONSE);
+        if (isMessageConcurrencyEnabled()) {
+            return ctx.response().onMessages(messages -> transformConcurrently(ctx, messages, meters));
+        }
+        return ctx.response().onMessage(message -> transformMessage(ctx, message, meters));
     }
 
     @Override
     public Completable onMessageRequest(KafkaMessageExecutionContext ctx) {
-        return ctx.request().onMessage(message -> transformMessage(ctx, message));
+        final Meters meters = metrics.of(apiId(ctx), Scope.KAFKA_PUBLISH);
+        if (isKafkaBatchEnabled()) {
+            return ctx.request().onMessages(messages -> transformMessages(ctx, messages, meters));
+        }
+        return ctx.request().onMessage(message -> transformMessage(ctx, message, meters));
     }
 
     @Override
     public Completable onMessageResponse(KafkaMessageExecutionContext ctx) {
-        return ctx.response().onMessage(message -> transformMessage(ctx, message));
+        final Meters meters = metrics.of(apiId(ctx), Scope.KAFKA_SUBSCRIBE);
+        if (isKafkaBatchEnabled()) {
+            return ctx.response().onMessages(messages -> transformMessages(ctx, messages, meters));
+        }
+        return ctx.response().onMessage(message -> transformMessage(ctx, message, meters));
+    }
+
+    /**
+     * HTTP messages are only transformed on worker threads with a static specification: EL is evaluated against the execution context,
+     * which must stay on the event loop.
+     */
+    private boolean isMessageConcurrencyEnabled() {
+        return configuration.getMessageConcurrency() > 1 && specification.isStatic();
+    }
+
+    /**
+     * Records are only transformed by batch with a static specification: with EL, the specification may depend on each record.
+     */
+    private boolean isKafkaBatchEnabled() {
+        return configuration.getKafkaBatchSize() > 1 && specification.isStatic();
+    }
+
+    private static String apiId(final KafkaMessageExecutionContext ctx) {
+        final KafkaExecutionContext executionContext = ctx.executionContext();
+        return executionContext != null ? executionContext.getAttribute(ContextAttributes.ATTR_API) : null;
     }
 
-    private Maybe<Buffer> transformBody(final HttpPlainExecutionContext ctx, final Maybe<Buffer> body, HttpHeaders httpHeaders) {
+    private Maybe<Buffer> transformBody(
+        final HttpPlainExecutionContext ctx,
+        final Maybe<Buffer> body,
+        HttpHeaders httpHeaders,
+        final Meters meters,
+        final boolean cacheable
+    ) {
         return applyJoltTransform(
-            ctx.getTemplateEngine(),
-            new HttpBodyWrapper(body, httpHeaders, configuration.isOverrideContentType())
-        ).onErrorResumeWith(
-            ctx.interruptBodyWith(
-                new ExecutionFailure(500).key(INVALID_JSON_TRANSFORMATION).message("Unable to apply JOLT transformation to payload")
-            )
+            ctx::getTemplateEngine,
+            new HttpBodyWrapper(body, httpHeaders, configuration.isOverrideContentType(), jsonMediaTypes, cacheable),
+            meters
+        ).onErrorResumeNext(throwable -> {
+            if (throwable instanceof PayloadTooLargeException) {
+                // A body can not be dropped, it is always rejected
+                return ctx.interruptBodyWith(payloadTooLargeFailure());
+            }
+            if (throwable instanceof RejectedExecutionException) {
+                return ctx.interruptBodyWith(transformationRejectedFailure());
+            }
+            return ctx.interruptBodyWith(INVALID_TRANSFORMATION_FAILURE);
+        });
+    }
+
+    private Flowable<Buffer> transformChunks(
+        final HttpPlainExecutionContext ctx,
+        final Flowable<Buffer> chunks,
+        final HttpHeaders httpHeaders,
+        final Meters meters
+    ) {
+        if (!HttpBodyWrapper.isJsonContentType(httpHeaders, jsonMediaTypes)) {
+            meters.skipped.increment();
+            return chunks;
+        }
+        if (exceeds(HttpBodyWrapper.declaredLength(httpHeaders), configuration.getMaxInputBytes())) {
+            meters.oversized.increment();
+            if (configuration.getOversizeAction() == OversizeAction.PASS_THROUGH) {
+                return chunks;
+            }
+            return ctx.interruptBodyWith(payloadTooLargeFailure()).toFlowable();
+        }
+        return specification
+            .resolve(ctx::getTemplateEngine)
+            .flatMapPublisher(chainr -> streamChunks(chainr, chunks, httpHeaders))
+            .onErrorResumeNext(throwable -> {
+                if (throwable instanceof PayloadTooLargeException) {
+                    // Part of the transformed body may already be sent, it can not be passed through anymore
+                    meters.oversized.increment();
+                    return ctx.interruptBodyWith(payloadTooLargeFailure()).toFlowable();
+                }
+                meters.failures.increment();
+                return ctx.interruptBodyWith(INVALID_TRANSFORMATION_FAILURE).toFlowable();
+            });
+    }
+
+    /**
+     * Each chunk is transformed as soon as it is received, the length of the transformed body is not known upfront. The size of the chunks
+     * received so far is checked against the maximum payload size, a body without Content-Length is only known to be too large once read.
+     */
+    private Flowable<Buffer> streamChunks(final Chainr chainr, final Flowable<Buffer> chunks, final HttpHeaders httpHeaders)
+        throws IOException {
+        final JsonArrayStreamTransformer transformer = codec.arrayStream(chainr::transform);
+        final AtomicLong received = new AtomicLong();
+        httpHeaders.remove(HttpHeaderNames.CONTENT_LENGTH);
+        httpHeaders.set(HttpHeaderNames.TRANSFER_ENCODING, CHUNKED);
+        if (configuration.isOverrideContentType()) {
+            HeaderValues.setJsonContentType(httpHeaders);
+        }
+        return chunks
+            .map(chunk -> {
+                final long size = received.addAndGet(chunk.length());
+                if (exceeds(size, configuration.getMaxInputBytes())) {
+                    throw new PayloadTooLargeException(size, configuration.getMaxInputBytes());
+                }
+                return transformer.onChunk(chunk);
+            })
+            .concatWith(Single.fromCallable(transformer::onEnd))
+            .filter(chunk -> chunk.length() > 0);
+    }
+
+    /**
+     * Transform messages larger than the worker threshold on worker threads, up to the configured concurrency, the result of each one being
+     * emitted back on the Vert.x context of the caller. Transformations are subscribed eagerly but their results are emitted in the order
+     * of the messages, smaller messages are still transformed in place.
+     */
+    private Flowable<Message> transformConcurrently(
+        final HttpMessageExecutionContext ctx,
+        final Flowable<Message> messages,
+        final Meters meters
+    ) {
+        return messages.concatMapEager(
+            message -> transformMessage(ctx, message, meters, messageExecutor).toFlowable(),
+            configuration.getMessageConcurrency(),
+            1
         );
     }
 
-    private Maybe<Message> transformMessage(final HttpMessageExecutionContext ctx, final Message message) {
+    private Maybe<Message> transformMessage(final HttpMessageExecutionContext ctx, final Message message, final Meters meters) {
+        return transformMessage(ctx, message, meters, executor);
+    }
+
+    private Maybe<Message> transformMessage(
+        final HttpMessageExecutionContext ctx,
+        final Message message,
+        final Meters meters,
+        final TransformationExecutor executor
+    ) {
         return applyJoltTransform(
-            ctx.getTemplateEngine(message),
-            new HttpMessageWrapper<>(message, configuration.isOverrideContentType())
-        ).onErrorResumeWith(
-            ctx.interruptMessageWith(
-                new ExecutionFailure(500).key(INVALID_JSON_TRANSFORMATION).message("Unable to apply JOLT transformation to payload")
-            )
-        );
+            () -> ctx.getTemplateEngine(message),
+            new HttpMessageWrapper<>(message, configuration.isOverrideContentType(), jsonMediaTypes),
+            meters,
+            executor
+        ).onErrorResumeNext(throwable -> {
+            if (throwable instanceof PayloadTooLargeException) {
+                return configuration.getOversizeAction() == OversizeAction.DROP
+                    ? Maybe.empty()
+                    : ctx.interruptMessageWith(payloadTooLargeFailure());
+            }
+            if (throwable instanceof RejectedExecutionException) {
+                return ctx.interruptMessageWith(transformationRejectedFailure());
+            }
+            return ctx.interruptMessageWith(INVALID_TRANSFORMATION_FAILURE);
+        });
     }
 
-    private Maybe<KafkaMessage> transformMessage(final KafkaMessageExecutionContext ctx, final KafkaMessage message) {
+    private Maybe<KafkaMessage> transformMessage(final KafkaMessageExecutionContext ctx, final KafkaMessage message, final Meters meters) {
         return applyJoltTransform(
-            ctx.getTemplateEngine(message),
-            new KafkaMessageWrapper(message, configuration.isOverrideContentType())
-        ).onErrorResumeWith(
-            Maybe.fromCompletable(ctx.executionContext().interruptWith(org.apache.kafka.common.protocol.Errors.UNKNOWN_SERVER_ERROR))
-        );
+            () -> ctx.getTemplateEngine(message),
+            new KafkaMessageWrapper(message, configuration.isOverrideContentType(), jsonMediaTypes),
+            meters
+        ).onErrorResumeNext(throwable -> {
+            if (throwable instanceof PayloadTooLargeException) {
+                return oversizedRecord(ctx);
+            }
+            return Maybe.fromCompletable(
+                ctx.executionContext().interruptWith(org.apache.kafka.common.protocol.Errors.UNKNOWN_SERVER_ERROR)
+            );
+        });
+    }
+
+    private Maybe<KafkaMessage> oversizedRecord(final KafkaMessageExecutionContext ctx) {
+        if (configuration.getOversizeAction() == OversizeAction.DROP) {
+            return Maybe.empty();
+        }
+        return Maybe.fromCompletable(ctx.executionContext().interruptWith(org.apache.kafka.common.protocol.Errors.MESSAGE_TOO_LARGE));
+    }
+
+    private static ExecutionFailure payloadTooLargeFailure() {
+        return new ExecutionFailure(413).key(PAYLOAD_TOO_LARGE).message("Payload too large to apply JOLT transformation");
+    }
+
+    private static ExecutionFailure transformationRejectedFailure() {
+        return new ExecutionFailure(503).key(TRANSFORMATION_REJECTED).message("Too many payloads waiting for a JOLT transformation");
+    }
+
+    private Flowable<KafkaMessage> transformMessages(
+        final KafkaMessageExecutionContext ctx,
+        final Flowable<KafkaMessage> messages,
+        final Meters meters
+    ) {
+        final Chainr chainr = specification.resolveNow(() -> {
+            throw new IllegalStateException("A static specification does not need a template engine");
+        });
+        return messages.buffer(configuration.getKafkaBatchSize()).concatMap(batch -> transformBatch(ctx, chainr, batch, meters));
+    }
+
+    /**
+     * Transform the records of a batch in place with the same {@link Chainr}, keeping their order. A record that can not be transformed
+     * is handled like a single record: the execution is interrupted, or the record dropped, after the records preceding it have been
+     * emitted.
+     */
+    private Flowable<KafkaMessage> transformBatch(
+        final KafkaMessageExecutionContext ctx,
+        final Chainr chainr,
+        final List<KafkaMessage> batch,
+        final Meters meters
+    ) {
+        Flowable<KafkaMessage> transformed = null;
+        int from = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            final KafkaMessage message = batch.get(i);
+            final KafkaMessageWrapper messageWrapper = new KafkaMessageWrapper(
+                message,
+                configuration.isOverrideContentType(),
+                jsonMediaTypes
+            );
+            if (!messageWrapper.isJsonContentType()) {
+                meters.skipped.increment();
+                continue;
+            }
+            final Buffer content = message.content();
+            if (content == null || content.length() == 0) {
+                continue;
+            }
+            Maybe<KafkaMessage> replacement;
+            try {
+                transform(chainr, content, messageWrapper, meters);
+                continue;
+            } catch (PayloadTooLargeException e) {
+                replacement = oversizedRecord(ctx);
+            } catch (Exception e) {
+                meters.failures.increment();
+                replacement = Maybe.fromCompletable(
+                    ctx.executionContext().interruptWith(org.apache.kafka.common.protocol.Errors.UNKNOWN_SERVER_ERROR)
+                );
+            }
+            final Flowable<KafkaMessage> segment = Flowable.fromIterable(batch.subList(from, i)).concatWith(replacement);
+            transformed = transformed == null ? segment : transformed.concatWith(segment);
+            from = i + 1;
+        }
+        if (transformed == null) {
+            return Flowable.fromIterable(batch);
+        }
+        return transformed.concatWith(Flowable.fromIterable(batch.subList(from, batch.size())));
     }
 
-    private <T> Maybe<T> applyJoltTransform(final TemplateEngine templateEngine, final MessageWrapper<T> messageWrapper) {
+    /**
+     * Package-private for <code>JsonToJsonTransformationBenchmark</code>, which measures the transformation without an execution context.
+     */
+    <T> Maybe<T> applyJoltTransform(
+        final Supplier<TemplateEngine> templateEngine,
+        final MessageWrapper<T> messageWrapper,
+        final Meters meters
+    ) {
+        return applyJoltTransform(templateEngine, messageWrapper, meters, executor);
+    }
+
+    private <T> Maybe<T> applyJoltTransform(
+        final Supplier<TemplateEngine> templateEngine,
+        final MessageWrapper<T> messageWrapper,
+        final Meters meters,
+        final TransformationExecutor executor
+    ) {
         if (!messageWrapper.isJsonContentType()) {
+            meters.skipped.increment();
             return messageWrapper.unchanged();
         }
+        final long declaredLength = messageWrapper.declaredLength();
+        if (exceeds(declaredLength, configuration.getMaxInputBytes())) {
+            // Bail out before the content is read or the specification evaluated
+            meters.oversized.increment();
+            if (configuration.getOversizeAction() == OversizeAction.PASS_THROUGH) {
+                return messageWrapper.unchanged();
+            }
+            return Maybe.error(new PayloadTooLargeException(declaredLength, configuration.getMaxInputBytes()));
+        }
 
         var nonEmptyBuffer = messageWrapper.content().filter(b -> b.length() > 0);
-        Maybe<Chainr> joltSpec = templateEngine
-            .eval(configuration.getSpecification(), String.class)
-            .map(specification -> Chainr.fromSpec(JsonUtils.jsonToList(specification)));
-
-        return Maybe.zip(joltSpec, nonEmptyBuffer, (chainr, buffer) -> {
-            Object inputJSON = JsonUtils.jsonToObject(buffer.toString());
-            Object transformedOutput = chainr.transform(inputJSON);
-            return Buffer.buffer(JsonUtils.toJsonString(transformedOutput));
-        })
-            .map(messageWrapper::withContent)
+        Maybe<Chainr> joltSpec = specification.isStatic() ? specification.resolve(templateEngine) : timedResolve(templateEngine, meters);
+
+        return Maybe.zip(joltSpec, nonEmptyBuffer, (chainr, buffer) ->
+            executor.execute(buffer, () -> transform(chainr, buffer, messageWrapper, meters))
+        )
+            .flatMap(transformation -> transformation)
             .switchIfEmpty(messageWrapper.emptyContent())
+            .doOnError(throwable -> {
+                if (throwable instanceof RejectedExecutionException) {
+                    meters.rejections.increment();
+                } else if (!(throwable instanceof PayloadTooLargeException)) {
+                    meters.failures.increment();
+                }
+            })
             .onErrorResumeNext(Maybe::error);
     }
+
+    /**
+     * Transform the content of a message, checking its size, then the size of the transformation, against the configured maximums.
+     * Content the specification is known to leave unchanged is passed through as is, with the headers of a transformed one,
+     * moved values are spliced when zero-copy is enabled.
+     * The transformation of cacheable content is looked up in, then stored in, the result cache.
+     */
+    private <T> T transform(final Chainr chainr, final Buffer buffer, final MessageWrapper<T> messageWrapper, final Meters meters)
+        throws IOException {
+        if (exceeds(buffer.length(), configuration.getMaxInputBytes())) {
+            return oversized(buffer, buffer.length(), configuration.getMaxInputBytes(), messageWrapper, meters);
+        }
+        if (specification.leavesUnchanged(buffer)) {
+            meters.unchanged.increment();
+            // Headers are set as for a transformed payload, so that they do not depend on the keys the payload holds
+            return messageWrapper.withContent(buffer);
+        }
+        final ResultCache.Key cacheKey = resultCache != null && messageWrapper.isCacheable() ? ResultCache.key(buffer) : null;
+        final Buffer cached = cacheKey != null ? resultCache.get(cacheKey) : null;
+        if (cached != null) {
+            return messageWrapper.withContent(cached);
+        }
+        Buffer output = configuration.isZeroCopy() ? splice(buffer, meters) : null;
+        if (output == null) {
+            output = transform(chainr, buffer, meters);
+        }
+        if (exceeds(output.length(), configuration.getMaxOutputBytes())) {
+            return oversized(buffer, output.length(), configuration.getMaxOutputBytes(), messageWrapper, meters);
+        }
+        if (cacheKey != null) {
+            resultCache.put(cacheKey, output);
+        }
+        return messageWrapper.withContent(output);
+    }
+
+    private <T> T oversized(
+        final Buffer buffer,
+        final long size,
+        final long maxSize,
+        final MessageWrapper<T> messageWrapper,
+        final Meters meters
+    ) {
+        meters.oversized.increment();
+        if (configuration.getOversizeAction() == OversizeAction.PASS_THROUGH) {
+            return messageWrapper.original(buffer);
+        }
+        throw new PayloadTooLargeException(size, maxSize);
+    }
+
+    private static boolean exceeds(final long size, final long maxSize) {
+        return maxSize > 0 && size > maxSize;
+    }
+
+    private Buffer splice(final Buffer buffer, final Meters meters) {
+        final long start = System.nanoTime();
+        final Buffer output = specification.splice(buffer);
+        if (output != null) {
+            meters.transform.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            meters.inputBytes.record(buffer.length());
+            meters.outputBytes.record(output.length());
+        }
+        return output;
+    }
+
+    private Buffer transform(final Chainr chainr, final Buffer buffer, final Meters meters) throws IOException {
+        final long parseStart = System.nanoTime();
+        Object inputJSON = codec.read(buffer);
+        final long transformStart = System.nanoTime();
+        Object transformedOutput = chainr.transform(inputJSON);
+        final long serializeStart = System.nanoTime();
+        Buffer output = codec.write(transformedOutput);
+        final long end = System.nanoTime();
+
+        meters.parse.record(transformStart - parseStart, TimeUnit.NANOSECONDS);
+        meters.transform.record(serializeStart - transformStart, TimeUnit.NANOSECONDS);
+        meters.serialize.record(end - serializeStart, TimeUnit.NANOSECONDS);
+        meters.inputBytes.record(buffer.length());
+        meters.outputBytes.record(output.length());
+        return output;
+    }
+
+    /**
+     * EL evaluation of a dynamic specification, including its compilation on a cache miss.
+     */
+    private Maybe<Chainr> timedResolve(final Supplier<TemplateEngine> templateEngine, final Meters meters) {
+        return Maybe.defer(() -> {
+            final long evaluationStart = System.nanoTime();
+            return specification
+                .resolve(templateEngine)
+                .doOnSuccess(chainr -> meters.evaluation.record(System.nanoTime() - evaluationStart, TimeUnit.NANOSECONDS));
+        });
+    }
 }
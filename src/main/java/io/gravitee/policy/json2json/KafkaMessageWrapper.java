@@ -15,29 +15,27 @@
  */
 package io.gravitee.policy.json2json;
 
-import io.gravitee.common.http.MediaType;
 import io.gravitee.gateway.api.buffer.Buffer;
 import io.gravitee.gateway.api.http.HttpHeaderNames;
 import io.gravitee.gateway.reactive.api.message.kafka.KafkaMessage;
 import io.reactivex.rxjava3.core.Maybe;
-import java.util.Optional;
 
 class KafkaMessageWrapper implements MessageWrapper<KafkaMessage> {
 
     private final KafkaMessage message;
     private final boolean overrideContentType;
+    private final JsonMediaTypes jsonMediaTypes;
 
-    KafkaMessageWrapper(final KafkaMessage message, final boolean overrideContentType) {
+    KafkaMessageWrapper(final KafkaMessage message, final boolean overrideContentType, final JsonMediaTypes jsonMediaTypes) {
         this.message = message;
         this.overrideContentType = overrideContentType;
+        this.jsonMediaTypes = jsonMediaTypes;
     }
 
     @Override
     public boolean isJsonContentType() {
-        return Optional.ofNullable(message.recordHeaders().get(HttpHeaderNames.CONTENT_TYPE))
-            .map(Buffer::toString)
-            .map(v -> v.toLowerCase().contains("json"))
-            .orElse(true);
+        final Buffer contentType = message.recordHeaders().get(HttpHeaderNames.CONTENT_TYPE);
+        return contentType == null || jsonMediaTypes.isJson(contentType);
     }
 
     @Override
@@ -45,15 +43,32 @@ class KafkaMessageWrapper implements MessageWrapper<KafkaMessage> {
         return Maybe.fromCallable(message::content);
     }
 
+    @Override
+    public long declaredLength() {
+        final Buffer content = message.content();
+        return content != null ? content.length() : -1;
+    }
+
     @Override
     public KafkaMessage withContent(final Buffer content) {
-        message.putRecordHeader(HttpHeaderNames.CONTENT_LENGTH, Buffer.buffer(content.length()));
+        final Buffer contentLength = HeaderValues.contentLength(message.recordHeaders(), content.length());
+        if (contentLength != null) {
+            message.putRecordHeader(HttpHeaderNames.CONTENT_LENGTH, contentLength);
+        }
         if (overrideContentType) {
-            message.putRecordHeader(HttpHeaderNames.CONTENT_TYPE, Buffer.buffer(MediaType.APPLICATION_JSON));
+            final Buffer contentType = HeaderValues.jsonContentType(message.recordHeaders());
+            if (contentType != null) {
+                message.putRecordHeader(HttpHeaderNames.CONTENT_TYPE, contentType);
+            }
         }
         return (KafkaMessage) message.content(content);
     }
 
+    @Override
+    public KafkaMessage original(final Buffer content) {
+        return message;
+    }
+
     @Override
     public Maybe<KafkaMessage> unchanged() {
         return Maybe.just(message);
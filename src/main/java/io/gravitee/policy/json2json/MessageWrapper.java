@@ -23,9 +23,26 @@ interface MessageWrapper<T> {
 
     Maybe<Buffer> content();
 
+    /**
+     * @return the size of the content known before reading it, or <code>-1</code> when unknown.
+     */
+    long declaredLength();
+
     T withContent(Buffer content);
 
+    /**
+     * @return the original content, already read, left untouched.
+     */
+    T original(Buffer content);
+
     Maybe<T> unchanged();
 
     Maybe<T> emptyContent();
+
+    /**
+     * @return <code>true</code> if the transformation of the content may be answered from, and stored in, the result cache.
+     */
+    default boolean isCacheable() {
+        return false;
+    }
 }
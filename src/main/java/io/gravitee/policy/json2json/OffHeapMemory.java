@@ -0,0 +1,110 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.policy.json2json;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Process-wide budget of the direct memory used to store cached transformations, shared by every instance of the policy so that the
+ * number of deployed policies does not multiply the memory held outside the heap. The budget defaults to 256 MiB and can be set with the
+ * <code>gravitee.policy.json2json.offHeapMaxBytes</code> system property, read once when the policy classes are loaded.
+ *
+ * Memory is allocated as pooled, reference-counted Netty {@link ByteBuf}: it is given back to the pool, and its reservation released, as
+ * soon as the last reference to a buffer is released, rather than whenever the garbage collector gets to it.
+ *
+ * @author GraviteeSource Team
+ */
+final class OffHeapMemory {
+
+    static final long DEFAULT_MAX_BYTES = 256L * 1024 * 1024;
+    static final OffHeapMemory SHARED = new OffHeapMemory(
+        Long.getLong(TransformationMetrics.PREFIX + ".offHeapMaxBytes", DEFAULT_MAX_BYTES)
+    );
+
+    private final long maxBytes;
+    private final ByteBufAllocator allocator;
+    private final AtomicLong reservedBytes = new AtomicLong();
+
+    OffHeapMemory(final long maxBytes) {
+        this(maxBytes, PooledByteBufAllocator.DEFAULT);
+    }
+
+    OffHeapMemory(final long maxBytes, final ByteBufAllocator allocator) {
+        this.maxBytes = maxBytes;
+        this.allocator = allocator;
+    }
+
+    /**
+     * Copy the given bytes to direct memory.
+     *
+     * @return the direct buffer holding the bytes, with a single reference owned by the caller, or <code>null</code> when the budget is
+     * exhausted.
+     */
+    ByteBuf store(final ByteBuffer bytes) {
+        final int size = bytes.remaining();
+        long reserved;
+        do {
+            reserved = reservedBytes.get();
+            if (reserved + size > maxBytes) {
+                return null;
+            }
+        } while (!reservedBytes.compareAndSet(reserved, reserved + size));
+        try {
+            return allocator.directBuffer(size, size).writeBytes(bytes.duplicate());
+        } catch (RuntimeException | OutOfMemoryError e) {
+            reservedBytes.addAndGet(-size);
+            throw e;
+        }
+    }
+
+    /**
+     * Release a reference to a buffer returned by {@link #store(ByteBuffer)}, giving its memory back once it was the last one.
+     */
+    void release(final ByteBuf buffer) {
+        final int size = buffer.capacity();
+        if (buffer.release()) {
+            reservedBytes.addAndGet(-size);
+        }
+    }
+
+    long reservedBytes() {
+        return reservedBytes.get();
+    }
+
+    long maxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * Register the usage and budget gauges, a registry returning the existing gauges when already registered.
+     */
+    void bindTo(final MeterRegistry registry) {
+        Gauge.builder(TransformationMetrics.PREFIX + ".offheap.used", this, OffHeapMemory::reservedBytes)
+            .description("Direct memory used by the cached transformations of every policy instance")
+            .baseUnit("bytes")
+            .register(registry);
+        Gauge.builder(TransformationMetrics.PREFIX + ".offheap.max", this, OffHeapMemory::maxBytes)
+            .description("Direct memory available to the cached transformations of every policy instance")
+            .baseUnit("bytes")
+            .register(registry);
+    }
+}
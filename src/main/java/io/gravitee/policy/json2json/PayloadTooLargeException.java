@@ -0,0 +1,31 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.policy.json2json;
+
+/**
+ * Raised when a payload, or its transformation, exceeds the configured maximum size and must be rejected or dropped.
+ *
+ * @author GraviteeSource Team
+ */
+class PayloadTooLargeException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    PayloadTooLargeException(final long size, final long maxSize) {
+        // No stack trace, this is an expected outcome, not a bug
+        super("Payload of " + size + " bytes exceeds the maximum of " + maxSize + " bytes", null, false, false);
+    }
+}
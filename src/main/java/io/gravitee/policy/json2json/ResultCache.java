@@ -0,0 +1,332 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.policy.json2json;
+
+import io.gravitee.gateway.api.buffer.Buffer;
+import io.gravitee.policy.json2json.configuration.JsonToJsonTransformationPolicyConfiguration;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Cache of the transformations of a static specification, keyed by the SHA-256 digest of the transformed payloads. A transformation only
+ * depends on the specification and the payload, a payload already transformed is answered from the cache without being parsed.
+ *
+ * The cache is bounded by the total size of the cached transformations: once full, the least recently accessed ones are evicted, each in
+ * constant time from the head of an access-ordered map. Entries expire a fixed time after they have been cached, and are dropped when
+ * next looked up. Each instance of the policy has its own cache, and so its own maximum size on the heap.
+ *
+ * Transformations are copied to heap arrays, or to direct memory within the budget of {@link OffHeapMemory} so that a large cache does not
+ * weigh on garbage collections. A transformation the budget can not hold is not cached. Direct memory is given back when an entry is
+ * evicted: a hit retains the entry only while it is copied to the heap, as the buffers written by Vert.x are never released.
+ *
+ * @author GraviteeSource Team
+ */
+class ResultCache {
+
+    private static final String ALGORITHM = "SHA-256";
+    private static final ThreadLocal<MessageDigest> DIGESTS = ThreadLocal.withInitial(ResultCache::newDigest);
+    // Key, entry and map node, roughly
+    private static final int ENTRY_OVERHEAD_BYTES = 128;
+
+    // Access-ordered, guarded by the lock: a lookup moves the entry to the tail
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Lock lock = new ReentrantLock();
+    private final long maxBytes;
+    private final long expireAfterWriteNanos;
+    private final LongSupplier ticker;
+    private final OffHeapMemory offHeap;
+    private volatile long bytes;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder rejections = new LongAdder();
+
+    ResultCache(final long maxBytes, final Duration expireAfterWrite, final OffHeapMemory offHeap) {
+        this(maxBytes, expireAfterWrite, offHeap, System::nanoTime);
+    }
+
+    /**
+     * @param offHeap the direct memory storing the transformations, <code>null</code> to store them on the heap
+     */
+    ResultCache(final long maxBytes, final Duration expireAfterWrite, final OffHeapMemory offHeap, final LongSupplier ticker) {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("Cache max size must be greater than 0");
+        }
+        this.maxBytes = maxBytes;
+        this.expireAfterWriteNanos = expireAfterWrite.toNanos();
+        this.offHeap = offHeap;
+        this.ticker = ticker;
+    }
+
+    /**
+     * @return the cache configured for the policy, or <code>null</code> when disabled.
+     */
+    static ResultCache of(
+        final JsonToJsonTransformationPolicyConfiguration configuration,
+        final MeterRegistry registry,
+        final String specificationHash
+    ) {
+        if (!configuration.isResultCache() || configuration.getResultCacheMaxBytes() <= 0) {
+            return null;
+        }
+        final OffHeapMemory offHeap = configuration.isResultCacheOffHeap() ? OffHeapMemory.SHARED : null;
+        final ResultCache cache = new ResultCache(
+            configuration.getResultCacheMaxBytes(),
+            Duration.ofSeconds(configuration.getResultCacheTtlSeconds()),
+            offHeap
+        );
+        final Tags tags = Tags.of("spec", specificationHash);
+        for (String name : List.of(".result.cache", ".result.cache.evictions", ".result.cache.size", ".result.cache.rejections")) {
+            TransformationMetrics.removeFunctionMeters(registry, TransformationMetrics.PREFIX + name, tags);
+        }
+        FunctionCounter.builder(TransformationMetrics.PREFIX + ".result.cache", cache, ResultCache::hitCount)
+            .description("Lookups of the transformation result cache")
+            .tags(tags.and("result", "hit"))
+            .register(registry);
+        FunctionCounter.builder(TransformationMetrics.PREFIX + ".result.cache", cache, ResultCache::missCount)
+            .description("Lookups of the transformation result cache")
+            .tags(tags.and("result", "miss"))
+            .register(registry);
+        FunctionCounter.builder(TransformationMetrics.PREFIX + ".result.cache.evictions", cache, ResultCache::evictionCount)
+            .description("Evictions from the transformation result cache")
+            .tags(tags)
+            .register(registry);
+        Gauge.builder(TransformationMetrics.PREFIX + ".result.cache.size", cache, ResultCache::sizeInBytes)
+            .description("Size of the transformations held by the result cache")
+            .baseUnit("bytes")
+            .tags(tags.and("storage", offHeap != null ? "offheap" : "heap"))
+            .register(registry);
+        if (offHeap != null) {
+            FunctionCounter.builder(TransformationMetrics.PREFIX + ".result.cache.rejections", cache, ResultCache::rejectionCount)
+                .description("Transformations not cached because the off-heap budget was exhausted")
+                .tags(tags)
+                .register(registry);
+            offHeap.bindTo(registry);
+        }
+        return cache;
+    }
+
+    /**
+     * @return the key of the given payload, i.e. the digest of its bytes, read in place when possible.
+     */
+    static Key key(final Buffer payload) {
+        // A virtual thread computes a single key: a digest kept for it would never be reused
+        final MessageDigest digest = Thread.currentThread().isVirtual() ? newDigest() : DIGESTS.get();
+        final Object nativeBuffer = payload.getNativeBuffer();
+        if (nativeBuffer instanceof ByteBuf) {
+            final ByteBuf byteBuf = (ByteBuf) nativeBuffer;
+            if (byteBuf.hasArray()) {
+                digest.update(byteBuf.array(), byteBuf.arrayOffset() + byteBuf.readerIndex(), byteBuf.readableBytes());
+            } else {
+                digest.update(byteBuf.nioBuffer());
+            }
+        } else {
+            digest.update(payload.getBytes());
+        }
+        // digest() resets the digest for the next payload
+        return new Key(digest.digest());
+    }
+
+    /**
+     * @return the transformation cached for the given key, or <code>null</code> if none or expired.
+     */
+    Buffer get(final Key key) {
+        final long now = ticker.getAsLong();
+        ByteBuf content = null;
+        lock.lock();
+        try {
+            final Entry entry = entries.get(key);
+            if (entry != null) {
+                if (!entry.isExpired(now, expireAfterWriteNanos)) {
+                    content = offHeap != null ? entry.content.retain() : entry.content;
+                } else {
+                    entries.remove(key);
+                    evicted(entry);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (content == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        if (offHeap == null) {
+            // The content is never written to: any write to the returned buffer goes to a new one
+            return Buffer.buffer(Unpooled.wrappedBuffer(content.nioBuffer()));
+        }
+        try {
+            return Buffer.buffer(Unpooled.copiedBuffer(content));
+        } finally {
+            offHeap.release(content);
+        }
+    }
+
+    /**
+     * Cache a copy of the given transformation, unless it is larger than the cache itself.
+     */
+    void put(final Key key, final Buffer transformation) {
+        final long size = (long) transformation.length() + ENTRY_OVERHEAD_BYTES;
+        if (size > maxBytes) {
+            return;
+        }
+        final ByteBuf content = copy(transformation);
+        if (content == null) {
+            rejections.increment();
+            return;
+        }
+        final Entry entry = new Entry(content, ticker.getAsLong());
+        lock.lock();
+        try {
+            final Entry existing = entries.put(key, entry);
+            if (existing != null) {
+                bytes -= existing.size();
+                release(existing);
+            }
+            bytes += entry.size();
+            final Iterator<Entry> eldest = entries.values().iterator();
+            while (bytes > maxBytes) {
+                final Entry evicted = eldest.next();
+                eldest.remove();
+                evicted(evicted);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    long hitCount() {
+        return hits.sum();
+    }
+
+    long missCount() {
+        return misses.sum();
+    }
+
+    long evictionCount() {
+        return evictions.sum();
+    }
+
+    long rejectionCount() {
+        return rejections.sum();
+    }
+
+    long sizeInBytes() {
+        return bytes;
+    }
+
+    int size() {
+        lock.lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Account for an entry just removed from the map, under the lock.
+     */
+    private void evicted(final Entry entry) {
+        bytes -= entry.size();
+        release(entry);
+        evictions.increment();
+    }
+
+    private ByteBuf copy(final Buffer transformation) {
+        if (offHeap == null) {
+            return Unpooled.wrappedBuffer(transformation.getBytes());
+        }
+        final Object nativeBuffer = transformation.getNativeBuffer();
+        if (nativeBuffer instanceof ByteBuf) {
+            final ByteBuf byteBuf = (ByteBuf) nativeBuffer;
+            return offHeap.store(byteBuf.nioBuffer());
+        }
+        return offHeap.store(ByteBuffer.wrap(transformation.getBytes()));
+    }
+
+    private void release(final Entry entry) {
+        if (offHeap != null) {
+            offHeap.release(entry.content);
+        }
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance(ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(ALGORITHM + " is not available", e);
+        }
+    }
+
+    static final class Key {
+
+        private final byte[] digest;
+        private final int hash;
+
+        private Key(final byte[] digest) {
+            this.digest = digest;
+            this.hash = Arrays.hashCode(digest);
+        }
+
+        @Override
+        public boolean equals(final Object other) {
+            return other instanceof Key && Arrays.equals(digest, ((Key) other).digest);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private static final class Entry {
+
+        private final ByteBuf content;
+        private final long writtenAt;
+
+        private Entry(final ByteBuf content, final long writtenAt) {
+            this.content = content;
+            this.writtenAt = writtenAt;
+        }
+
+        private long size() {
+            return (long) content.capacity() + ENTRY_OVERHEAD_BYTES;
+        }
+
+        private boolean isExpired(final long now, final long expireAfterWriteNanos) {
+            return now - writtenAt > expireAfterWriteNanos;
+        }
+    }
+}
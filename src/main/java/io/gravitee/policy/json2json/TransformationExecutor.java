@@ -0,0 +1,241 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.policy.json2json;
+
+import io.gravitee.gateway.api.buffer.Buffer;
+import io.gravitee.policy.json2json.configuration.ExecutionMode;
+import io.gravitee.policy.json2json.configuration.JsonToJsonTransformationPolicyConfiguration;
+import io.reactivex.rxjava3.core.Maybe;
+import io.reactivex.rxjava3.core.MaybeEmitter;
+import io.vertx.core.Context;
+import io.vertx.core.Vertx;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Run the transformation of payloads larger than the worker threshold according to the configured {@link ExecutionMode}, any smaller
+ * payload is transformed inline. The result of a transformation run on another thread is emitted back on the Vert.x context of the caller,
+ * if any, so that the execution context of the policy keeps being used from its own thread.
+ *
+ * Worker threads are shared by every instance of the policy, so that the number of deployed policies does not multiply the number of
+ * threads: there are as many as processors, or as set with the <code>gravitee.policy.json2json.workerThreads</code> system property, and
+ * they time out when idle. Virtual threads are not bounded, so transformations run on them are bounded the same way: at most as many as
+ * worker threads run at the same time for every instance, the other virtual threads waiting for their turn.
+ * Each instance hands at most as many transformations at the same time as its worker pool size over to worker or virtual threads, and keeps
+ * at most as many waiting as its worker queue size. Further transformations fail with a {@link RejectedExecutionException} rather than
+ * being run by the calling thread, usually the event loop.
+ *
+ * @author GraviteeSource Team
+ */
+class TransformationExecutor {
+
+    private static final long KEEP_ALIVE_SECONDS = 60;
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+    static final int WORKER_THREADS = Integer.getInteger(
+        TransformationMetrics.PREFIX + ".workerThreads",
+        Runtime.getRuntime().availableProcessors()
+    );
+    // Unbounded: each instance of the policy bounds the transformations it hands over
+    private static final Executor WORKER_POOL = workerPool(WORKER_THREADS);
+    // Transformations running on virtual threads, for every instance of the policy
+    private static final Semaphore VIRTUAL_THREAD_PERMITS = new Semaphore(WORKER_THREADS);
+    private static final Executor VIRTUAL_THREADS = virtualThreads(Executors.newVirtualThreadPerTaskExecutor());
+
+    private final long thresholdBytes;
+    private final Executor executor;
+    private final int maxRunning;
+    private final int maxWaiting;
+    private final Queue<Runnable> waiting = new ArrayDeque<>();
+    private int running;
+
+    private TransformationExecutor(final long thresholdBytes, final Executor executor, final int maxRunning, final int maxWaiting) {
+        this.thresholdBytes = thresholdBytes;
+        this.executor = executor;
+        this.maxRunning = maxRunning;
+        this.maxWaiting = maxWaiting;
+    }
+
+    static TransformationExecutor of(final JsonToJsonTransformationPolicyConfiguration configuration) {
+        return of(configuration, configuration.getExecutionMode());
+    }
+
+    /**
+     * @return the executor of the HTTP messages transformed concurrently, which are handed to the worker pool in the INLINE execution mode.
+     */
+    static TransformationExecutor forMessages(final JsonToJsonTransformationPolicyConfiguration configuration) {
+        final ExecutionMode executionMode = configuration.getExecutionMode();
+        return of(configuration, executionMode == ExecutionMode.INLINE ? ExecutionMode.WORKER_POOL : executionMode);
+    }
+
+    private static TransformationExecutor of(
+        final JsonToJsonTransformationPolicyConfiguration configuration,
+        final ExecutionMode executionMode
+    ) {
+        final Executor executor = switch (executionMode) {
+            case WORKER_POOL -> WORKER_POOL;
+            case VIRTUAL_THREAD -> VIRTUAL_THREADS;
+            default -> null;
+        };
+        if (executor == null) {
+            return new TransformationExecutor(Long.MAX_VALUE, null, 0, 0);
+        }
+        final int maxRunning = configuration.getWorkerPoolSize() > 0
+            ? configuration.getWorkerPoolSize()
+            : Runtime.getRuntime().availableProcessors();
+        return new TransformationExecutor(
+            configuration.getWorkerThresholdBytes(),
+            executor,
+            maxRunning,
+            Math.max(0, configuration.getWorkerQueueSize())
+        );
+    }
+
+    /**
+     * @return whether payloads may be transformed on another thread than the calling one.
+     */
+    boolean offloads() {
+        return executor != null;
+    }
+
+    /**
+     * @return the result of the transformation of the content, run on a worker thread when the content is large enough.
+     */
+    <T> Maybe<T> execute(final Buffer content, final Callable<T> transformation) {
+        if (executor == null || content.length() < thresholdBytes) {
+            return Maybe.fromCallable(transformation);
+        }
+        return Maybe.create(emitter -> {
+            final Context context = Vertx.currentContext();
+            if (!submit(() -> run(transformation, emitter, context))) {
+                emitter.tryOnError(new RejectedExecutionException("Too many payloads waiting for a worker thread"));
+            }
+        });
+    }
+
+    synchronized int running() {
+        return running;
+    }
+
+    synchronized int waiting() {
+        return waiting.size();
+    }
+
+    private synchronized boolean submit(final Runnable task) {
+        if (running < maxRunning) {
+            running++;
+            executor.execute(() -> runThenNext(task));
+            return true;
+        }
+        if (waiting.size() < maxWaiting) {
+            waiting.add(task);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Hand the next waiting transformation over once one completes, so that an instance never runs more than its share at the same time.
+     */
+    private void runThenNext(final Runnable task) {
+        try {
+            task.run();
+        } finally {
+            final Runnable next;
+            synchronized (this) {
+                next = waiting.poll();
+                if (next == null) {
+                    running--;
+                }
+            }
+            if (next != null) {
+                executor.execute(() -> runThenNext(next));
+            }
+        }
+    }
+
+    private <T> void run(final Callable<T> transformation, final MaybeEmitter<T> emitter, final Context context) {
+        T result = null;
+        Throwable error = null;
+        try {
+            result = transformation.call();
+        } catch (Throwable throwable) {
+            error = throwable;
+        }
+        if (context == null) {
+            emit(emitter, result, error);
+        } else {
+            final T transformed = result;
+            final Throwable failure = error;
+            context.runOnContext(ignored -> emit(emitter, transformed, failure));
+        }
+    }
+
+    private static <T> void emit(final MaybeEmitter<T> emitter, final T result, final Throwable error) {
+        if (error != null) {
+            emitter.tryOnError(error);
+        } else if (result == null) {
+            emitter.onComplete();
+        } else {
+            emitter.onSuccess(result);
+        }
+    }
+
+    private static Executor workerPool(final int threads) {
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(
+            threads,
+            threads,
+            KEEP_ALIVE_SECONDS,
+            TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(),
+            workerThreadFactory()
+        );
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * @return an executor running each task on its own virtual thread, once a permit is available.
+     */
+    private static Executor virtualThreads(final Executor executor) {
+        return task ->
+            executor.execute(() -> {
+                VIRTUAL_THREAD_PERMITS.acquireUninterruptibly();
+                try {
+                    task.run();
+                } finally {
+                    VIRTUAL_THREAD_PERMITS.release();
+                }
+            });
+    }
+
+    private static ThreadFactory workerThreadFactory() {
+        return runnable -> {
+            final Thread thread = new Thread(runnable, "json2json-worker-" + THREAD_COUNT.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
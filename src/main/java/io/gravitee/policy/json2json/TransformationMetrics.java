@@ -0,0 +1,301 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.policy.json2json;
+
+import io.gravitee.policy.json2json.jolt.ChainrCache;
+import io.gravitee.policy.json2json.jolt.JoltSpecification;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.vertx.micrometer.backends.BackendRegistries;
+import java.lang.ref.Cleaner;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micrometer meters of the policy, tagged by API, execution scope and specification hash.
+ *
+ * Meters are created once per API and scope, the hot path only records values on already registered meters.
+ * Compilation, compiled specification cache and specification registry statistics are exposed through function meters, read when scraped.
+ * Function meters only hold a weak reference to the object they read: the policy keeps these objects reachable through this instance,
+ * and the function meters left by a previous policy instance with the same specification are replaced by the ones of the new instance.
+ * The transformations of each API handed to worker threads are exposed as gauges summing the executors of all the live policy instances.
+ * The gateway does not notify a policy instance when its API is undeployed: the meters of an API are removed from the registry once the
+ * last policy instance using them has been garbage collected.
+ *
+ * @author GraviteeSource Team
+ */
+class TransformationMetrics {
+
+    static final String PREFIX = "gravitee.policy.json2json";
+    private static final String UNKNOWN_API = "unknown";
+    private static final Cleaner CLEANER = Cleaner.create();
+    // Policy instances using the meters of each API and specification, also read by the worker gauges
+    private static final ConcurrentMap<ApiKey, ApiUsers> API_USERS = new ConcurrentHashMap<>();
+
+    private final MeterRegistry registry;
+    // Read by the function meters, which only hold a weak reference to them
+    private final JoltSpecification specification;
+    private final TransformationExecutor executor;
+    private final String specificationHash;
+    private final ConcurrentMap<String, Meters[]> meters = new ConcurrentHashMap<>();
+    // APIs whose meters are used by this instance, released when it is collected
+    private final Set<ApiKey> apis = ConcurrentHashMap.newKeySet();
+    private final Cleaner.Cleanable release;
+
+    TransformationMetrics(final MeterRegistry registry, final JoltSpecification specification, final TransformationExecutor executor) {
+        this.registry = registry;
+        this.specification = specification;
+        this.executor = executor;
+        this.specificationHash = specification.hash();
+        this.release = CLEANER.register(this, new Release(apis, executor));
+
+        final Tags tags = Tags.of("spec", specificationHash);
+        removeFunctionMeters(registry, PREFIX + ".compile", tags);
+        removeFunctionMeters(registry, PREFIX + ".spec.cache", tags);
+        removeFunctionMeters(registry, PREFIX + ".spec.cache.evictions", tags);
+        FunctionTimer.builder(
+            PREFIX + ".compile",
+            specification,
+            JoltSpecification::compileCount,
+            JoltSpecification::compileTimeNanos,
+            TimeUnit.NANOSECONDS
+        )
+            .description("Compilation of the JOLT specification")
+            .tags(tags)
+            .register(registry);
+        FunctionCounter.builder(PREFIX + ".spec.cache", specification.cache(), ChainrCache::hitCount)
+            .description("Lookups of the compiled specification cache")
+            .tags(tags.and("result", "hit"))
+            .register(registry);
+        FunctionCounter.builder(PREFIX + ".spec.cache", specification.cache(), ChainrCache::missCount)
+            .description("Lookups of the compiled specification cache")
+            .tags(tags.and("result", "miss"))
+            .register(registry);
+        FunctionCounter.builder(PREFIX + ".spec.cache.evictions", specification.cache(), ChainrCache::evictionCount)
+            .description("Evictions from the compiled specification cache")
+            .tags(tags)
+            .register(registry);
+        Gauge.builder(PREFIX + ".spec.registry.size", JoltSpecification::registeredCount)
+            .description("Distinct specifications used by the policy instances")
+            .register(registry);
+        FunctionCounter.builder(PREFIX + ".spec.registry.shared", JoltSpecification.class, type -> JoltSpecification.sharedCount())
+            .description("Policy instances reusing a specification already compiled for another one")
+            .register(registry);
+    }
+
+    /**
+     * @return the registry scraped by the gateway, i.e. the Micrometer backend of Vert.x exposing the node metrics, or the global registry
+     * when the gateway metrics are disabled.
+     */
+    static MeterRegistry gatewayRegistry() {
+        final MeterRegistry registry = BackendRegistries.getDefaultNow();
+        return registry != null ? registry : Metrics.globalRegistry;
+    }
+
+    /**
+     * Remove the function meters registered by a previous policy instance, the registry would otherwise return them, still reading the
+     * objects of that instance, instead of registering new ones.
+     */
+    static void removeFunctionMeters(final MeterRegistry registry, final String name, final Tags tags) {
+        registry.find(name).tags(tags).meters().forEach(registry::remove);
+    }
+
+    /**
+     * @return the meters of the given API and scope, registering them on first use.
+     */
+    Meters of(final String api, final Scope scope) {
+        final String apiId = api != null ? api : UNKNOWN_API;
+        final Meters[] apiMeters = meters.computeIfAbsent(apiId, this::registerApi);
+        Meters scopeMeters = apiMeters[scope.ordinal()];
+        if (scopeMeters == null) {
+            // Racing threads may register twice, the registry then returns the same meters
+            scopeMeters = new Meters(registry, Tags.of("api", apiId, "scope", scope.tag, "spec", specificationHash));
+            apiMeters[scope.ordinal()] = scopeMeters;
+        }
+        return scopeMeters;
+    }
+
+    /**
+     * Release the meters used by this instance now, instead of once it is collected.
+     */
+    void release() {
+        release.clean();
+    }
+
+    private Meters[] registerApi(final String apiId) {
+        final ApiKey key = new ApiKey(registry, apiId, specificationHash);
+        apis.add(key);
+        // Joining under the lock of the entry, the meters of the API can't be removed by the last user leaving meanwhile
+        final ApiUsers users = API_USERS.compute(key, (ignored, current) -> (current != null ? current : new ApiUsers()).join(executor));
+        if (executor.offloads()) {
+            final Tags tags = Tags.of("api", apiId, "spec", specificationHash);
+            Gauge.builder(PREFIX + ".worker.active", users, ApiUsers::running)
+                .description("Transformations handed to a worker thread")
+                .tags(tags)
+                .register(registry);
+            Gauge.builder(PREFIX + ".worker.queue", users, ApiUsers::waiting)
+                .description("Transformations waiting for the policy to hand them to a worker thread")
+                .tags(tags)
+                .register(registry);
+        }
+        return new Meters[Scope.values().length];
+    }
+
+    private record ApiKey(MeterRegistry registry, String api, String spec) {
+
+        boolean owns(final Meter meter) {
+            final Meter.Id id = meter.getId();
+            return id.getName().startsWith(PREFIX + ".") && api.equals(id.getTag("api")) && spec.equals(id.getTag("spec"));
+        }
+    }
+
+    /**
+     * Policy instances using the meters of an API, and executors of those offloading the transformations, summed by the worker gauges.
+     */
+    private static final class ApiUsers {
+
+        // Guarded by the lock of the entry in API_USERS
+        private int users;
+        private final Set<TransformationExecutor> executors = ConcurrentHashMap.newKeySet();
+
+        private ApiUsers join(final TransformationExecutor executor) {
+            users++;
+            if (executor.offloads()) {
+                executors.add(executor);
+            }
+            return this;
+        }
+
+        /**
+         * @return {@code true} if the last user of the meters just left.
+         */
+        private boolean leave(final TransformationExecutor executor) {
+            executors.remove(executor);
+            return --users == 0;
+        }
+
+        private int running() {
+            return executors.stream().mapToInt(TransformationExecutor::running).sum();
+        }
+
+        private int waiting() {
+            return executors.stream().mapToInt(TransformationExecutor::waiting).sum();
+        }
+    }
+
+    /**
+     * Leave the APIs used by a policy instance, removing their meters when it was the last user. Must not reference the instance.
+     */
+    private record Release(Set<ApiKey> apis, TransformationExecutor executor) implements Runnable {
+
+        @Override
+        public void run() {
+            apis.forEach(key ->
+                API_USERS.computeIfPresent(key, (ignored, users) -> {
+                    if (!users.leave(executor)) {
+                        return users;
+                    }
+                    key.registry().getMeters().stream().filter(key::owns).forEach(key.registry()::remove);
+                    return null;
+                })
+            );
+        }
+    }
+
+    enum Scope {
+        REQUEST("request"),
+        RESPONSE("response"),
+        MESSAGE_REQUEST("message_request"),
+        MESSAGE_RESPONSE("message_response"),
+        KAFKA_PUBLISH("kafka_publish"),
+        KAFKA_SUBSCRIBE("kafka_subscribe");
+
+        private final String tag;
+
+        Scope(final String tag) {
+            this.tag = tag;
+        }
+    }
+
+    static final class Meters {
+
+        final Timer evaluation;
+        final Timer parse;
+        final Timer transform;
+        final Timer serialize;
+        final DistributionSummary inputBytes;
+        final DistributionSummary outputBytes;
+        final Counter failures;
+        final Counter skipped;
+        final Counter oversized;
+        final Counter unchanged;
+        final Counter rejections;
+
+        private Meters(final MeterRegistry registry, final Tags tags) {
+            this.evaluation = phase(registry, tags, "evaluation");
+            this.parse = phase(registry, tags, "parse");
+            this.transform = phase(registry, tags, "transform");
+            this.serialize = phase(registry, tags, "serialize");
+            this.inputBytes = DistributionSummary.builder(PREFIX + ".payload.size")
+                .description("Size of the payloads")
+                .baseUnit("bytes")
+                .tags(tags.and("direction", "input"))
+                .register(registry);
+            this.outputBytes = DistributionSummary.builder(PREFIX + ".payload.size")
+                .description("Size of the payloads")
+                .baseUnit("bytes")
+                .tags(tags.and("direction", "output"))
+                .register(registry);
+            this.failures = Counter.builder(PREFIX + ".failures")
+                .description("Transformations interrupted because of an error")
+                .tags(tags.and("key", JsonToJsonTransformationPolicy.INVALID_JSON_TRANSFORMATION))
+                .register(registry);
+            this.skipped = Counter.builder(PREFIX + ".skipped")
+                .description("Payloads left untouched because they are not JSON")
+                .tags(tags)
+                .register(registry);
+            this.oversized = Counter.builder(PREFIX + ".oversized")
+                .description("Payloads, or their transformation, exceeding the configured maximum size")
+                .tags(tags)
+                .register(registry);
+            this.unchanged = Counter.builder(PREFIX + ".unchanged")
+                .description("Payloads passed through as is because the specification does not apply to them")
+                .tags(tags)
+                .register(registry);
+            this.rejections = Counter.builder(PREFIX + ".worker.rejections")
+                .description("Transformations rejected because too many were already waiting for a worker thread")
+                .tags(tags)
+                .register(registry);
+        }
+
+        private static Timer phase(final MeterRegistry registry, final Tags tags, final String phase) {
+            return Timer.builder(PREFIX + ".phase")
+                .description("Time spent in each phase of the transformation")
+                .tags(tags.and("phase", phase))
+                .register(registry);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.policy.json2json.configuration;
+
+/**
+ * Where payloads larger than the worker threshold are parsed, transformed and serialized.
+ *
+ * @author GraviteeSource Team
+ */
+public enum ExecutionMode {
+    /**
+     * On the thread delivering the payload, usually the event loop.
+     */
+    INLINE,
+    /**
+     * On the pool of worker threads shared by every policy, at most as many at the same time as the worker pool size. A payload is rejected
+     * when the worker queue of the policy is full.
+     */
+    WORKER_POOL,
+    /**
+     * On a virtual thread per payload, at most as many at the same time as the worker pool size. A payload is rejected when the worker
+     * queue of the policy is full.
+     */
+    VIRTUAL_THREAD,
+}
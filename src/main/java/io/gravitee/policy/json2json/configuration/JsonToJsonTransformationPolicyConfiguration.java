@@ -16,6 +16,7 @@
 package io.gravitee.policy.json2json.configuration;
 
 import io.gravitee.policy.api.PolicyConfiguration;
+import java.util.List;
 import lombok.*;
 
 /**
@@ -37,4 +38,87 @@ public class JsonToJsonTransformationPolicyConfiguration implements PolicyConfig
     //by default, we override the content-type to be backward compatible
     @Builder.Default
     private boolean overrideContentType = true;
+
+    //number of Kafka records transformed together, 1 transforms each record on its own
+    @Builder.Default
+    private int kafkaBatchSize = 1;
+
+    //maximum size of the payload to transform, in bytes, 0 means unlimited
+    private long maxInputBytes;
+
+    //maximum size of the transformed payload, in bytes, 0 means unlimited
+    private long maxOutputBytes;
+
+    @Builder.Default
+    private OversizeAction oversizeAction = OversizeAction.PASS_THROUGH;
+
+    //transform each element of a top-level array body as it is received instead of buffering the whole body
+    private boolean streaming;
+
+    //content types transformed in addition to application/json and +json suffixes
+    private List<String> additionalJsonContentTypes;
+
+    //engine applying the specification, COMPILED builds dedicated execution plans for the operations it supports
+    @Builder.Default
+    private TransformationEngine engine = TransformationEngine.JOLT;
+
+    //compile and apply the specification to a sample payload when the policy is created, an invalid specification then fails the deployment
+    private boolean warmUp;
+
+    //sample payload transformed during the warm-up, {} if not set
+    private String warmUpPayload;
+
+    //number of transformations of the sample payload during the warm-up
+    @Builder.Default
+    private int warmUpIterations = 100;
+
+    //copy the values moved by a shift-only specification byte for byte instead of parsing and writing them back
+    private boolean zeroCopy;
+
+    //number of HTTP messages transformed at the same time on worker threads, 1 transforms each message in turn on the event loop
+    @Builder.Default
+    private int messageConcurrency = 1;
+
+    //minimum size of a payload, in bytes, to transform it on a worker thread
+    @Builder.Default
+    private long workerThresholdBytes = 16 * 1024;
+
+    //where payloads larger than workerThresholdBytes are transformed
+    @Builder.Default
+    private ExecutionMode executionMode = ExecutionMode.INLINE;
+
+    //number of payloads of the policy transformed at the same time on worker or virtual threads, 0 means the number of processors
+    private int workerPoolSize;
+
+    //number of transformations of the policy waiting for a worker thread, further ones are rejected
+    @Builder.Default
+    private int workerQueueSize = 64;
+
+    //cache the transformations of GET response bodies, only applies to a specification without EL
+    private boolean resultCache;
+
+    //maximum size of the transformations held by the result cache of this policy instance, in bytes
+    @Builder.Default
+    private long resultCacheMaxBytes = 16 * 1024 * 1024;
+
+    //time after which a cached transformation expires, in seconds
+    @Builder.Default
+    private long resultCacheTtlSeconds = 60;
+
+    //store the cached transformations in direct memory, within a budget shared by every policy instance
+    private boolean resultCacheOffHeap;
+
+    /**
+     * Constructor of the configuration before any optional setting was added, new settings keep their default value.
+     */
+    public JsonToJsonTransformationPolicyConfiguration(
+        final PolicyScope scope,
+        final String specification,
+        final boolean overrideContentType
+    ) {
+        this();
+        this.scope = scope;
+        this.specification = specification;
+        this.overrideContentType = overrideContentType;
+    }
 }
@@ -0,0 +1,36 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.policy.json2json.configuration;
+
+/**
+ * What to do with a payload exceeding the configured maximum input or output size.
+ *
+ * @author GraviteeSource Team
+ */
+public enum OversizeAction {
+    /**
+     * Leave the payload untouched.
+     */
+    PASS_THROUGH,
+    /**
+     * Interrupt the execution with a 413 (or <code>MESSAGE_TOO_LARGE</code> for Kafka).
+     */
+    REJECT,
+    /**
+     * Drop the message. A request or response body can not be dropped and is rejected instead.
+     */
+    DROP,
+}
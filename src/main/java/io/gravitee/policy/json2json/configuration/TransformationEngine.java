@@ -0,0 +1,33 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.policy.json2json.configuration;
+
+/**
+ * Engine applying the JOLT specification.
+ *
+ * @author GraviteeSource Team
+ */
+public enum TransformationEngine {
+    /**
+     * Apply every operation with the JOLT interpreter.
+     */
+    JOLT,
+    /**
+     * Compile the <code>shift</code> and <code>remove</code> operations only relying on literal keys, and the <code>default</code>
+     * operations setting a single literal key per level, into dedicated execution plans, any other operation is applied by JOLT.
+     */
+    COMPILED,
+}
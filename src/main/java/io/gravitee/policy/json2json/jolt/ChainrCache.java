@@ -0,0 +1,160 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.policy.json2json.jolt;
+
+import com.bazaarvoice.jolt.Chainr;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Bounded cache of compiled JOLT {@link Chainr}, keyed by the specification they have been compiled from (i.e. after EL evaluation).
+ *
+ * Entries not accessed for longer than the idle timeout are dropped, and once the cache is full the least recently accessed entry is
+ * evicted, so that specifications built from EL values cannot make it grow without limit.
+ *
+ * @author GraviteeSource Team
+ */
+public class ChainrCache {
+
+    public static final int DEFAULT_MAX_SIZE = 128;
+    public static final Duration DEFAULT_EXPIRE_AFTER_ACCESS = Duration.ofMinutes(10);
+
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final int maxSize;
+    private final long expireAfterAccessNanos;
+    private final LongSupplier ticker;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder compileTimeNanos = new LongAdder();
+
+    public ChainrCache() {
+        this(DEFAULT_MAX_SIZE, DEFAULT_EXPIRE_AFTER_ACCESS);
+    }
+
+    public ChainrCache(final int maxSize, final Duration expireAfterAccess) {
+        this(maxSize, expireAfterAccess, System::nanoTime);
+    }
+
+    ChainrCache(final int maxSize, final Duration expireAfterAccess, final LongSupplier ticker) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Cache max size must be greater than 0");
+        }
+        this.maxSize = maxSize;
+        this.expireAfterAccessNanos = expireAfterAccess.toNanos();
+        this.ticker = ticker;
+    }
+
+    /**
+     * Get the {@link Chainr} cached for the given key, using the compiler to create it on first use.
+     * Compilation errors are propagated to the caller and nothing is cached.
+     */
+    public Chainr get(final String key, final Function<String, Chainr> compiler) {
+        final long now = ticker.getAsLong();
+        final Entry entry = entries.get(key);
+
+        if (entry != null) {
+            if (!entry.isIdle(now, expireAfterAccessNanos)) {
+                entry.accessedAt = now;
+                hits.increment();
+                return entry.chainr;
+            }
+            if (entries.remove(key, entry)) {
+                evictions.increment();
+            }
+        }
+
+        misses.increment();
+        final long compileStart = System.nanoTime();
+        final Chainr chainr = compiler.apply(key);
+        compileTimeNanos.add(System.nanoTime() - compileStart);
+        final Entry existing = entries.putIfAbsent(key, new Entry(chainr, now));
+        if (existing != null) {
+            // Another thread compiled the same specification in the meantime, keep a single instance
+            existing.accessedAt = now;
+            return existing.chainr;
+        }
+
+        if (entries.size() > maxSize) {
+            evict(now);
+        }
+        return chainr;
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    public long evictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * @return the total time spent compiling specifications on cache misses, in nanoseconds.
+     */
+    public long compileTimeNanos() {
+        return compileTimeNanos.sum();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private void evict(final long now) {
+        for (Map.Entry<String, Entry> candidate : entries.entrySet()) {
+            if (candidate.getValue().isIdle(now, expireAfterAccessNanos) && entries.remove(candidate.getKey(), candidate.getValue())) {
+                evictions.increment();
+            }
+        }
+
+        while (entries.size() > maxSize) {
+            Map.Entry<String, Entry> eldest = null;
+            for (Map.Entry<String, Entry> candidate : entries.entrySet()) {
+                if (eldest == null || candidate.getValue().accessedAt < eldest.getValue().accessedAt) {
+                    eldest = candidate;
+                }
+            }
+            if (eldest != null && entries.remove(eldest.getKey(), eldest.getValue())) {
+                evictions.increment();
+            }
+        }
+    }
+
+    private static final class Entry {
+
+        private final Chainr chainr;
+        private volatile long accessedAt;
+
+        private Entry(final Chainr chainr, final long accessedAt) {
+            this.chainr = chainr;
+            this.accessedAt = accessedAt;
+        }
+
+        private boolean isIdle(final long now, final long expireAfterAccessNanos) {
+            return now - accessedAt > expireAfterAccessNanos;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.policy.json2json.jolt;
+
+import com.bazaarvoice.jolt.Chainr;
+import com.bazaarvoice.jolt.Defaultr;
+import com.bazaarvoice.jolt.JoltTransform;
+import com.bazaarvoice.jolt.Removr;
+import com.bazaarvoice.jolt.Shiftr;
+import com.bazaarvoice.jolt.chainr.instantiator.ChainrInstantiator;
+import com.bazaarvoice.jolt.chainr.instantiator.DefaultChainrInstantiator;
+import com.bazaarvoice.jolt.chainr.spec.ChainrEntry;
+import com.bazaarvoice.jolt.exception.SpecException;
+
+/**
+ * Compiles a JOLT specification into a {@link Chainr} whose <code>shift</code>, <code>default</code> and <code>remove</code> operations are
+ * replaced by execution plans dedicated to their specification.
+ *
+ * A plan only walks the input along the keys of its specification, without the path matching and bookkeeping JOLT performs on each node,
+ * and gives the same result as the JOLT operation. Plans are only built for specifications relying on literal keys (and <code>*</code>
+ * for <code>remove</code>, a single key per level for <code>default</code>), any other operation is left to JOLT. The JOLT operation is
+ * always created as well, so that the specification is validated the same way, and applied instead of the plan on an input the plan does
+ * not handle (e.g. a top-level array).
+ *
+ * @author GraviteeSource Team
+ */
+public final class CompiledChainr {
+
+    private static final ChainrInstantiator INSTANTIATOR = new Instantiator();
+
+    private CompiledChainr() {}
+
+    /**
+     * @param specification the parsed JOLT specification
+     * @return the {@link Chainr} applying the compiled operations
+     */
+    public static Chainr compile(final Object specification) {
+        return Chainr.fromSpec(specification, INSTANTIATOR);
+    }
+
+    private static final class Instantiator implements ChainrInstantiator {
+
+        private final ChainrInstantiator jolt = new DefaultChainrInstantiator();
+
+        @Override
+        public JoltTransform hydrateTransform(final ChainrEntry entry) {
+            final Class<? extends JoltTransform> transform = entry.getJoltTransformClass();
+            try {
+                if (transform == Shiftr.class) {
+                    return CompiledShiftr.of(entry.getSpec());
+                }
+                if (transform == Defaultr.class) {
+                    return CompiledDefaultr.of(entry.getSpec());
+                }
+                if (transform == Removr.class) {
+                    return CompiledRemovr.of(entry.getSpec());
+                }
+            } catch (RuntimeException e) {
+                // Same error as JOLT for an invalid specification
+                throw new SpecException(
+                    "JOLT Chainr encountered an exception constructing Transform className:" +
+                    transform.getCanonicalName() +
+                    entry.getErrorMessageIndexSuffix(),
+                    e
+                );
+            }
+            return jolt.hydrateTransform(entry);
+        }
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.policy.json2json.jolt;
+
+import com.bazaarvoice.jolt.Defaultr;
+import com.bazaarvoice.jolt.SpecDriven;
+import com.bazaarvoice.jolt.Transform;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <code>default</code> operation whose specification only relies on literal keys (no <code>*</code>, <code>|</code> or <code>[]</code>),
+ * with a single key per level.
+ *
+ * JOLT applies the defaults of a level in an order depending on the identity hash codes of its specification objects, which changes from
+ * one instance to another: the keys added by a level with several keys can not come out in the same order as JOLT, such specifications
+ * are left to JOLT. The JOLT {@link Defaultr} is also applied to a top-level array.
+ *
+ * @author GraviteeSource Team
+ */
+final class CompiledDefaultr implements SpecDriven, Transform {
+
+    private final Defaultr defaultr;
+    private final Node root;
+
+    private CompiledDefaultr(final Defaultr defaultr, final Node root) {
+        this.defaultr = defaultr;
+        this.root = root;
+    }
+
+    /**
+     * @return the compiled operation, or the JOLT {@link Defaultr} when the specification is not supported.
+     */
+    @SuppressWarnings("unchecked")
+    static Transform of(final Object spec) {
+        final Defaultr defaultr = new Defaultr(spec);
+        final Node root = spec instanceof Map ? Node.compile((Map<String, Object>) spec) : null;
+        return root != null ? new CompiledDefaultr(defaultr, root) : defaultr;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Object transform(final Object input) {
+        if (input instanceof List) {
+            return defaultr.transform(input);
+        }
+        final Object defaultee = input != null ? input : new HashMap<String, Object>();
+        if (defaultee instanceof Map) {
+            root.apply((Map<String, Object>) defaultee);
+        }
+        return defaultee;
+    }
+
+    /**
+     * Same copy as JOLT's, without the serialization round trip: JSON scalars are immutable and shared.
+     */
+    @SuppressWarnings("unchecked")
+    private static Object copy(final Object value) {
+        if (value instanceof List<?> list) {
+            final List<Object> copy = new ArrayList<>(list.size());
+            for (Object element : list) {
+                copy.add(copy(element));
+            }
+            return copy;
+        }
+        if (value instanceof Map<?, ?> map) {
+            final Map<Object, Object> copy = new LinkedHashMap<>();
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                copy.put(entry.getKey(), copy(entry.getValue()));
+            }
+            return copy;
+        }
+        return value;
+    }
+
+    private static final class Node {
+
+        private final String[] keys;
+        // Child of each key, null for a default value
+        private final Node[] children;
+        private final Object[] values;
+
+        private Node(final String[] keys, final Node[] children, final Object[] values) {
+            this.keys = keys;
+            this.children = children;
+            this.values = values;
+        }
+
+        @SuppressWarnings("unchecked")
+        private static Node compile(final Map<String, Object> spec) {
+            final int size = spec.size();
+            if (size > 1) {
+                // The order of the keys added by JOLT is not deterministic
+                return null;
+            }
+            final String[] keys = new String[size];
+            final Node[] children = new Node[size];
+            final Object[] values = new Object[size];
+            int i = 0;
+            for (Map.Entry<String, Object> entry : spec.entrySet()) {
+                final String key = entry.getKey();
+                if (key.contains("*") || key.contains("|") || key.endsWith("[]")) {
+                    return null;
+                }
+                keys[i] = key;
+                if (entry.getValue() instanceof Map) {
+                    children[i] = compile((Map<String, Object>) entry.getValue());
+                    if (children[i] == null) {
+                        return null;
+                    }
+                } else {
+                    values[i] = entry.getValue();
+                }
+                i++;
+            }
+            return new Node(keys, children, values);
+        }
+
+        @SuppressWarnings("unchecked")
+        private void apply(final Map<String, Object> defaultee) {
+            for (int i = 0; i < keys.length; i++) {
+                final Object value = defaultee.get(keys[i]);
+                final Node child = children[i];
+                if (child == null) {
+                    if (value == null) {
+                        defaultee.put(keys[i], copy(values[i]));
+                    }
+                } else if (value == null) {
+                    final Map<String, Object> container = new LinkedHashMap<>();
+                    defaultee.put(keys[i], container);
+                    child.apply(container);
+                } else if (value instanceof Map) {
+                    child.apply((Map<String, Object>) value);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.policy.json2json.jolt;
+
+import com.bazaarvoice.jolt.Removr;
+import com.bazaarvoice.jolt.SpecDriven;
+import com.bazaarvoice.jolt.Transform;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <code>remove</code> operation whose specification only relies on literal keys and <code>*</code>.
+ *
+ * Keys are removed in the same order as JOLT does, once all the children of a level have been applied, but without collecting them in
+ * intermediate lists and sets on each node.
+ *
+ * @author GraviteeSource Team
+ */
+final class CompiledRemovr implements SpecDriven, Transform {
+
+    private static final String STAR = "*";
+
+    private final Node root;
+
+    private CompiledRemovr(final Node root) {
+        this.root = root;
+    }
+
+    /**
+     * @return the compiled operation, or the JOLT {@link Removr} when the specification is not supported.
+     */
+    @SuppressWarnings("unchecked")
+    static Transform of(final Object spec) {
+        final Removr removr = new Removr(spec);
+        final Node root = Node.compile((Map<String, Object>) spec);
+        return root != null ? new CompiledRemovr(root) : removr;
+    }
+
+    @Override
+    public Object transform(final Object input) {
+        root.process(input);
+        return input;
+    }
+
+    private static final class Node {
+
+        private final String[] keys;
+        // Index matched by each key in an array, -1 if the key is not a positive integer
+        private final int[] indices;
+        // Child of each key, null for a removed key
+        private final Node[] children;
+
+        private Node(final String[] keys, final int[] indices, final Node[] children) {
+            this.keys = keys;
+            this.indices = indices;
+            this.children = children;
+        }
+
+        @SuppressWarnings("unchecked")
+        private static Node compile(final Map<String, Object> spec) {
+            final List<String> keys = new ArrayList<>(spec.size());
+            final List<Node> children = new ArrayList<>(spec.size());
+            for (Map.Entry<String, Object> entry : spec.entrySet()) {
+                for (String key : entry.getKey().split("\\|")) {
+                    if (key.contains(STAR) && !STAR.equals(key)) {
+                        return null;
+                    }
+                    Node child = null;
+                    if (entry.getValue() instanceof Map) {
+                        child = compile((Map<String, Object>) entry.getValue());
+                        if (child == null) {
+                            return null;
+                        }
+                    }
+                    keys.add(key);
+                    children.add(child);
+                }
+            }
+            final int[] indices = new int[keys.size()];
+            for (int i = 0; i < indices.length; i++) {
+                indices[i] = index(keys.get(i));
+            }
+            return new Node(keys.toArray(new String[0]), indices, children.toArray(new Node[0]));
+        }
+
+        private static int index(final String key) {
+            try {
+                return Math.max(Integer.parseInt(key), -1);
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private void process(final Object input) {
+            if (input instanceof List) {
+                processList((List<Object>) input);
+            } else if (input instanceof Map) {
+                processMap((Map<String, Object>) input);
+            }
+        }
+
+        private void processMap(final Map<String, Object> input) {
+            List<String> removed = null;
+            boolean removeAll = false;
+            for (int i = 0; i < keys.length; i++) {
+                final Node child = children[i];
+                if (STAR.equals(keys[i])) {
+                    if (child != null) {
+                        for (Object value : input.values()) {
+                            child.process(value);
+                        }
+                    } else {
+                        removeAll = true;
+                    }
+                } else if (child != null) {
+                    child.process(input.get(keys[i]));
+                } else if (input.containsKey(keys[i])) {
+                    if (removed == null) {
+                        removed = new ArrayList<>(keys.length);
+                    }
+                    removed.add(keys[i]);
+                }
+            }
+            if (removeAll) {
+                input.clear();
+            } else if (removed != null) {
+                for (String key : removed) {
+                    input.remove(key);
+                }
+            }
+        }
+
+        private void processList(final List<Object> input) {
+            boolean[] removed = null;
+            boolean removeAll = false;
+            for (int i = 0; i < keys.length; i++) {
+                final Node child = children[i];
+                if (STAR.equals(keys[i])) {
+                    if (child != null) {
+                        for (Object element : input) {
+                            child.process(element);
+                        }
+                    } else {
+                        removeAll = true;
+                    }
+                } else if (indices[i] >= 0 && indices[i] < input.size()) {
+                    if (child != null) {
+                        child.process(input.get(indices[i]));
+                    } else {
+                        if (removed == null) {
+                            removed = new boolean[input.size()];
+                        }
+                        removed[indices[i]] = true;
+                    }
+                }
+            }
+            if (removeAll) {
+                input.clear();
+            } else if (removed != null) {
+                for (int index = removed.length - 1; index >= 0; index--) {
+                    if (removed[index]) {
+                        input.remove(index);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,219 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.policy.json2json.jolt;
+
+import com.bazaarvoice.jolt.Shiftr;
+import com.bazaarvoice.jolt.SpecDriven;
+import com.bazaarvoice.jolt.Transform;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * <code>shift</code> operation whose specification only relies on literal keys, and writes each matched value to its own literal output
+ * path (e.g. <code>{ "user": { "name": "customer.fullName" } }</code>).
+ *
+ * Values are moved by reference, as JOLT does. As every output path is distinct and none is the parent of another, no value is ever merged
+ * into a list. The JOLT {@link Shiftr} is applied to an input that is not an object all the way down the specification.
+ *
+ * @author GraviteeSource Team
+ */
+final class CompiledShiftr implements SpecDriven, Transform {
+
+    private static final String UNSUPPORTED_KEY_CHARACTERS = "*&@$#[]\\|()";
+
+    private final Shiftr shiftr;
+    private final Node root;
+
+    private CompiledShiftr(final Shiftr shiftr, final Node root) {
+        this.shiftr = shiftr;
+        this.root = root;
+    }
+
+    /**
+     * @return the compiled operation, or the JOLT {@link Shiftr} when the specification is not supported.
+     */
+    @SuppressWarnings("unchecked")
+    static Transform of(final Object spec) {
+        final Shiftr shiftr = new Shiftr(spec);
+        final List<String[]> outputs = new ArrayList<>();
+        final Node root = Node.compile((Map<String, Object>) spec, outputs);
+        return root != null && distinct(outputs) ? new CompiledShiftr(shiftr, root) : shiftr;
+    }
+
+    Node root() {
+        return root;
+    }
+
+    @Override
+    public Object transform(final Object input) {
+        if (input == null) {
+            return null;
+        }
+        if (input instanceof Map<?, ?> map) {
+            final Map<String, Object> output = new LinkedHashMap<>();
+            if (root.apply(map, output)) {
+                return output.isEmpty() ? null : output;
+            }
+        }
+        return shiftr.transform(input);
+    }
+
+    private static boolean distinct(final List<String[]> outputs) {
+        final Set<String> paths = new HashSet<>();
+        for (String[] output : outputs) {
+            if (!paths.add(String.join(".", output))) {
+                return false;
+            }
+        }
+        for (String[] output : outputs) {
+            final StringBuilder parent = new StringBuilder();
+            for (int i = 0; i < output.length - 1; i++) {
+                if (i > 0) {
+                    parent.append('.');
+                }
+                if (paths.contains(parent.append(output[i]).toString())) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static boolean isLiteral(final String key) {
+        for (int i = 0; i < key.length(); i++) {
+            if (UNSUPPORTED_KEY_CHARACTERS.indexOf(key.charAt(i)) >= 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String[] outputPath(final Object rhs) {
+        if (!(rhs instanceof String path) || path.isBlank() || !isLiteral(path)) {
+            return null;
+        }
+        final String[] segments = path.split("\\.", -1);
+        for (String segment : segments) {
+            if (segment.isEmpty()) {
+                return null;
+            }
+        }
+        return segments;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void write(final Map<String, Object> output, final String[] path, final Object value) {
+        Map<String, Object> container = output;
+        for (int i = 0; i < path.length - 1; i++) {
+            Object next = container.get(path[i]);
+            if (next == null) {
+                next = new LinkedHashMap<String, Object>();
+                container.put(path[i], next);
+            }
+            container = (Map<String, Object>) next;
+        }
+        container.put(path[path.length - 1], value);
+    }
+
+    static final class Node {
+
+        private static final String[][] NO_OUTPUT = new String[0][];
+
+        final String[] keys;
+        // Child of each key, null for a leaf
+        final Node[] children;
+        // Output paths of each leaf
+        final String[][][] outputs;
+
+        private Node(final String[] keys, final Node[] children, final String[][][] outputs) {
+            this.keys = keys;
+            this.children = children;
+            this.outputs = outputs;
+        }
+
+        @SuppressWarnings("unchecked")
+        private static Node compile(final Map<String, Object> spec, final List<String[]> allOutputs) {
+            final int size = spec.size();
+            final String[] keys = new String[size];
+            final Node[] children = new Node[size];
+            final String[][][] outputs = new String[size][][];
+            int i = 0;
+            for (Map.Entry<String, Object> entry : spec.entrySet()) {
+                if (!isLiteral(entry.getKey())) {
+                    return null;
+                }
+                keys[i] = entry.getKey();
+                final Object rhs = entry.getValue();
+                if (rhs instanceof Map) {
+                    children[i] = compile((Map<String, Object>) rhs, allOutputs);
+                    if (children[i] == null) {
+                        return null;
+                    }
+                } else if (rhs == null) {
+                    outputs[i] = NO_OUTPUT;
+                } else if (rhs instanceof List<?> list) {
+                    outputs[i] = new String[list.size()][];
+                    for (int j = 0; j < list.size(); j++) {
+                        outputs[i][j] = outputPath(list.get(j));
+                        if (outputs[i][j] == null) {
+                            return null;
+                        }
+                    }
+                } else {
+                    final String[] path = outputPath(rhs);
+                    if (path == null) {
+                        return null;
+                    }
+                    outputs[i] = new String[][] { path };
+                }
+                if (outputs[i] != null) {
+                    allOutputs.addAll(List.of(outputs[i]));
+                }
+                i++;
+            }
+            return new Node(keys, children, outputs);
+        }
+
+        /**
+         * @return <code>false</code> if a value expected to be an object is not, the partial output must then be discarded.
+         */
+        private boolean apply(final Map<?, ?> input, final Map<String, Object> output) {
+            for (int i = 0; i < keys.length; i++) {
+                final Object value = input.get(keys[i]);
+                if (value == null && !input.containsKey(keys[i])) {
+                    continue;
+                }
+                final Node child = children[i];
+                if (child == null) {
+                    for (String[] path : outputs[i]) {
+                        write(output, path, value);
+                    }
+                } else if (value instanceof Map<?, ?> map) {
+                    if (!child.apply(map, output)) {
+                        return false;
+                    }
+                } else if (value != null) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
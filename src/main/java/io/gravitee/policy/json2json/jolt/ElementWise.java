@@ -0,0 +1,102 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.policy.json2json.jolt;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Tell whether a specification is written for the elements of a top-level array rather than for the array itself, so that applying it to
+ * each element on its own, as streaming does, gives the result its author expects.
+ *
+ * Only a specification whose operations all match literal top-level keys is considered written for the elements: applied to the array
+ * itself, such keys could not match any of its indexes. A top-level wildcard (<code>*</code>, <code>@</code>, <code>#</code>,
+ * <code>$</code>, <code>&amp;</code>), numeric or <code>[n]</code> key may match the array level, the specification is then applied to the
+ * whole array. Custom Java operations are not supported.
+ *
+ * @author GraviteeSource Team
+ */
+final class ElementWise {
+
+    private static final String OPERATION = "operation";
+    private static final String SPEC = "spec";
+    private static final String UNSUPPORTED_CHARACTERS = "*&@$#[]()";
+    private static final Set<String> OPERATIONS = Set.of(
+        "shift",
+        "default",
+        "remove",
+        "cardinality",
+        "sort",
+        "modify-overwrite-beta",
+        "modify-default-beta",
+        "modify-define-beta"
+    );
+
+    private ElementWise() {}
+
+    /**
+     * @param specification the parsed JOLT specification
+     * @return <code>true</code> if the specification can be applied to each element of an array on its own.
+     */
+    static boolean isSupported(final Object specification) {
+        if (!(specification instanceof List<?> operations) || operations.isEmpty()) {
+            return false;
+        }
+        for (Object operation : operations) {
+            if (!(operation instanceof Map<?, ?> entry) || !OPERATIONS.contains(entry.get(OPERATION))) {
+                return false;
+            }
+            final Object spec = entry.get(SPEC);
+            if (spec == null && "sort".equals(entry.get(OPERATION))) {
+                continue;
+            }
+            if (!(spec instanceof Map<?, ?> keys) || !hasLiteralTopLevelKeys(keys)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean hasLiteralTopLevelKeys(final Map<?, ?> spec) {
+        for (Object key : spec.keySet()) {
+            for (String alternative : key.toString().split("\\|")) {
+                if (alternative.isEmpty() || isNumeric(alternative) || containsAny(alternative, UNSUPPORTED_CHARACTERS)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static boolean isNumeric(final String key) {
+        for (int i = 0; i < key.length(); i++) {
+            if (!Character.isDigit(key.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean containsAny(final String key, final String characters) {
+        for (int i = 0; i < key.length(); i++) {
+            if (characters.indexOf(key.charAt(i)) >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,31 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.policy.json2json.jolt;
+
+/**
+ * Raised when applying a specification found invalid when the policy was created. It is created once and shared by all executions, so it
+ * does not capture any stack trace.
+ *
+ * @author GraviteeSource Team
+ */
+public class InvalidSpecificationException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    InvalidSpecificationException(final Throwable cause) {
+        super("Invalid JOLT specification: " + cause.getMessage(), cause, false, false);
+    }
+}
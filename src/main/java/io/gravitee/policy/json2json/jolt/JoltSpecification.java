@@ -0,0 +1,379 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.policy.json2json.jolt;
+
+import com.bazaarvoice.jolt.Chainr;
+import com.bazaarvoice.jolt.JsonUtils;
+import io.gravitee.el.TemplateEngine;
+import io.gravitee.gateway.api.buffer.Buffer;
+import io.gravitee.policy.json2json.configuration.TransformationEngine;
+import io.reactivex.rxjava3.core.Flowable;
+import io.reactivex.rxjava3.core.Maybe;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * JOLT specification as configured on the policy.
+ *
+ * A specification without any EL expression is compiled once, when the policy is created, and the template engine is never involved
+ * afterward. For a specification relying on EL, only its expressions are evaluated on each call when EL is only used inside JSON strings
+ * (see {@link SpecificationTemplate}), otherwise the whole specification goes through the template engine. In both cases, the resulting
+ * {@link Chainr} is compiled through a {@link ChainrCache}. With the {@link TransformationEngine#COMPILED} engine, supported operations are
+ * compiled by {@link CompiledChainr}.
+ *
+ * Specifications are immutable and thread-safe: policy instances configured with the same specification text and engine share a single
+ * instance through a {@link SpecificationRegistry}.
+ *
+ * @author GraviteeSource Team
+ */
+@Slf4j
+public class JoltSpecification {
+
+    private static final String EL_PREFIX = "{#";
+    private static final int HASH_LENGTH = 8;
+    private static final String DEFAULT_WARM_UP_PAYLOAD = "{}";
+    private static final SpecificationRegistry REGISTRY = new SpecificationRegistry();
+
+    private final String specification;
+    private final Function<Object, Chainr> compiler;
+    private final String hash;
+    private final JsonCodec codec;
+    private final long staticCompileTimeNanos;
+    private final Chainr staticChainr;
+    private final Maybe<Chainr> staticResolution;
+    private final TopLevelKeys topLevelKeys;
+    private final ShiftSplicer splicer;
+    private final boolean elementWise;
+    private final SpecificationTemplate template;
+    private final InvalidSpecificationException invalid;
+    private final Maybe<Chainr> invalidResolution;
+    private final ChainrCache chainrCache = new ChainrCache();
+    private final AtomicBoolean warmedUp = new AtomicBoolean();
+
+    private JoltSpecification(final String specification, final TransformationEngine engine) {
+        this.specification = specification;
+        this.compiler = engine == TransformationEngine.COMPILED ? CompiledChainr::compile : Chainr::fromSpec;
+        this.hash = hash(specification);
+        this.codec = JsonCodec.withKeys(keys(specification));
+        this.elementWise = isElementWise(specification);
+        final long compileStart = System.nanoTime();
+        Chainr chainr = null;
+        TopLevelKeys keys = null;
+        ShiftSplicer shiftSplicer = null;
+        Exception error = null;
+        if (specification != null && !specification.contains(EL_PREFIX)) {
+            try {
+                final List<Object> operations = JsonUtils.jsonToList(specification);
+                chainr = compiler.apply(operations);
+                keys = TopLevelKeys.of(operations);
+                shiftSplicer = ShiftSplicer.of(operations);
+            } catch (Exception e) {
+                error = e;
+            }
+        }
+        this.staticChainr = chainr;
+        this.staticCompileTimeNanos = staticChainr != null ? System.nanoTime() - compileStart : 0;
+        this.staticResolution = staticChainr != null ? Maybe.just(staticChainr) : null;
+        this.topLevelKeys = staticChainr != null ? keys : null;
+        this.splicer = staticChainr != null ? shiftSplicer : null;
+        this.template = staticChainr == null && error == null ? parseTemplate(specification) : null;
+        if (error == null && template != null) {
+            error = validateOperations(template.staticOperations(), compiler);
+        }
+        if (error != null) {
+            log.debug("Invalid JOLT specification, it will fail each execution", error);
+            this.invalid = new InvalidSpecificationException(error);
+            this.invalidResolution = Maybe.error(invalid);
+        } else {
+            this.invalid = null;
+            this.invalidResolution = null;
+        }
+    }
+
+    public static JoltSpecification of(final String specification) {
+        return of(specification, TransformationEngine.JOLT);
+    }
+
+    /**
+     * @return the specification shared by every policy instance configured with the same specification text and engine, compiled on
+     * first use.
+     */
+    public static JoltSpecification of(final String specification, final TransformationEngine engine) {
+        return REGISTRY.get(specification, engine, JoltSpecification::new);
+    }
+
+    /**
+     * @return the number of distinct specifications currently used by policy instances.
+     */
+    public static int registeredCount() {
+        return REGISTRY.size();
+    }
+
+    /**
+     * @return the number of times a policy instance reused a specification already compiled for another one.
+     */
+    public static long sharedCount() {
+        return REGISTRY.sharedCount();
+    }
+
+    /**
+     * @return <code>true</code> if the specification does not contain any EL and has been compiled upfront.
+     */
+    public boolean isStatic() {
+        return staticChainr != null;
+    }
+
+    /**
+     * Tell whether the specification leaves the content unchanged, by only scanning its top-level keys. Only supported for a specification
+     * without EL removing or renaming top-level keys (see {@link TopLevelKeys}), <code>false</code> is returned for any other.
+     *
+     * @return <code>true</code> if the content can be passed through as is instead of being transformed.
+     */
+    public boolean leavesUnchanged(final Buffer content) {
+        return topLevelKeys != null && topLevelKeys.isUnchanged(content);
+    }
+
+    /**
+     * Apply the specification to the bytes of the content, copying the values it moves as is. Only supported for a specification without
+     * EL made of a single <code>shift</code> operation relying on literal keys (see {@link ShiftSplicer}).
+     *
+     * @return the transformed content, or <code>null</code> if the content has to be transformed by the compiled specification.
+     */
+    public Buffer splice(final Buffer content) {
+        return splicer != null ? splicer.splice(content) : null;
+    }
+
+    /**
+     * @return <code>true</code> if the specification is written for the elements of a top-level array and can be applied to each of them
+     * on its own, see {@link ElementWise}.
+     */
+    public boolean isElementWise() {
+        return elementWise;
+    }
+
+    /**
+     * @return the codec reading and writing the payloads the specification is applied to, primed with the keys of the specification.
+     */
+    public JsonCodec codec() {
+        return codec;
+    }
+
+    /**
+     * @return <code>true</code> if the specification, or one of its operations without EL, has been found invalid when created.
+     */
+    public boolean isInvalid() {
+        return invalid != null;
+    }
+
+    /**
+     * @return a short hash of the configured specification, identifying it in metrics.
+     */
+    public String hash() {
+        return hash;
+    }
+
+    /**
+     * @return the number of compilations performed so far, upfront or on cache misses.
+     */
+    public long compileCount() {
+        return (staticChainr != null ? 1 : 0) + chainrCache.missCount();
+    }
+
+    /**
+     * @return the total time spent compiling the specification, in nanoseconds.
+     */
+    public long compileTimeNanos() {
+        return staticCompileTimeNanos + chainrCache.compileTimeNanos();
+    }
+
+    /**
+     * @return the cache of specifications compiled after EL evaluation.
+     */
+    public ChainrCache cache() {
+        return chainrCache;
+    }
+
+    /**
+     * Fail on an invalid specification (see {@link #isInvalid()}), then apply the specification to a sample payload, so that JOLT and
+     * Jackson classes are loaded and the JIT has compiled the transformation before the first call.
+     *
+     * A specification relying on EL can only be compiled once evaluated and is not warmed up. A sample payload the specification can not be
+     * applied to is only logged. A specification shared by several policy instances is only warmed up by the first one.
+     *
+     * @param samplePayload the JSON payload to transform, <code>{}</code> if <code>null</code>
+     * @param iterations the number of transformations of the sample payload
+     * @throws IllegalArgumentException if the specification can not be compiled
+     */
+    public void warmUp(final String samplePayload, final int iterations) {
+        if (invalid != null) {
+            throw new IllegalArgumentException(invalid.getMessage(), invalid.getCause());
+        }
+        if (staticChainr == null || !warmedUp.compareAndSet(false, true)) {
+            return;
+        }
+        final Buffer sample = Buffer.buffer(samplePayload != null ? samplePayload : DEFAULT_WARM_UP_PAYLOAD);
+        try {
+            for (int i = 0; i < iterations; i++) {
+                codec.write(staticChainr.transform(codec.read(sample)));
+            }
+        } catch (Exception e) {
+            log.warn("Unable to warm up the JOLT specification with the sample payload", e);
+        }
+    }
+
+    /**
+     * Resolve the {@link Chainr} to apply. The template engine is only requested when the specification contains EL.
+     * An invalid specification fails with the same {@link InvalidSpecificationException} on each call.
+     */
+    public Maybe<Chainr> resolve(final Supplier<TemplateEngine> templateEngine) {
+        if (staticResolution != null) {
+            return staticResolution;
+        }
+        if (invalidResolution != null) {
+            return invalidResolution;
+        }
+        if (template != null) {
+            final TemplateEngine engine = templateEngine.get();
+            return Flowable.fromArray(template.expressions())
+                .concatMapSingle(expression -> engine.eval(expression, String.class).defaultIfEmpty(""))
+                .toList()
+                .map(values -> compileTemplate(values.toArray(new String[0])))
+                .toMaybe();
+        }
+        return templateEngine.get().eval(specification, String.class).map(this::compileEvaluated);
+    }
+
+    /**
+     * Blocking flavor of {@link #resolve(Supplier)}, for the V3 engine.
+     */
+    public Chainr resolveNow(final Supplier<TemplateEngine> templateEngine) {
+        if (staticChainr != null) {
+            return staticChainr;
+        }
+        if (invalid != null) {
+            throw invalid;
+        }
+        if (template != null) {
+            final TemplateEngine engine = templateEngine.get();
+            final String[] expressions = template.expressions();
+            final String[] values = new String[expressions.length];
+            for (int i = 0; i < expressions.length; i++) {
+                final String value = engine.convert(expressions[i]);
+                values[i] = value != null ? value : "";
+            }
+            return compileTemplate(values);
+        }
+        return compileEvaluated(templateEngine.get().convert(specification));
+    }
+
+    private Chainr compileEvaluated(final String evaluated) {
+        return chainrCache.get(evaluated, key -> compiler.apply(JsonUtils.jsonToList(key)));
+    }
+
+    private Chainr compileTemplate(final String[] values) {
+        return chainrCache.get(SpecificationTemplate.key(values), key -> compiler.apply(template.render(values)));
+    }
+
+    /**
+     * Compile each operation of the specification not relying on EL on its own, so that an error not depending on EL values is reported
+     * upfront rather than on each execution.
+     *
+     * @return the compilation error, <code>null</code> if none
+     */
+    private static Exception validateOperations(final List<Object> operations, final Function<Object, Chainr> compiler) {
+        for (Object operation : operations) {
+            try {
+                compiler.apply(Collections.singletonList(operation));
+            } catch (Exception e) {
+                return e;
+            }
+        }
+        return null;
+    }
+
+    private static String hash(final String specification) {
+        if (specification == null) {
+            return "none";
+        }
+        try {
+            final byte[] digest = MessageDigest.getInstance("SHA-256").digest(specification.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, HASH_LENGTH);
+        } catch (NoSuchAlgorithmException e) {
+            return Integer.toHexString(specification.hashCode());
+        }
+    }
+
+    /**
+     * @return the keys of the objects of the specification, split like JOLT does on <code>|</code>, none if it can not be parsed.
+     */
+    private static Set<String> keys(final String specification) {
+        final Set<String> keys = new LinkedHashSet<>();
+        if (specification != null) {
+            try {
+                collectKeys(JsonUtils.jsonToObject(specification), keys);
+            } catch (Exception e) {
+                // Relies on EL outside JSON strings, or is invalid
+            }
+        }
+        return keys;
+    }
+
+    private static boolean isElementWise(final String specification) {
+        if (specification == null) {
+            return false;
+        }
+        try {
+            return ElementWise.isSupported(JsonUtils.jsonToObject(specification));
+        } catch (Exception e) {
+            // Relies on EL outside JSON strings, or is invalid
+            return false;
+        }
+    }
+
+    private static void collectKeys(final Object node, final Set<String> keys) {
+        if (node instanceof Map<?, ?> map) {
+            map.forEach((key, value) -> {
+                Collections.addAll(keys, key.toString().split("\\|"));
+                collectKeys(value, keys);
+            });
+        } else if (node instanceof List<?> list) {
+            list.forEach(element -> collectKeys(element, keys));
+        }
+    }
+
+    private static SpecificationTemplate parseTemplate(final String specification) {
+        if (specification == null) {
+            return null;
+        }
+        try {
+            return SpecificationTemplate.of(JsonUtils.jsonToList(specification), EL_PREFIX);
+        } catch (Exception e) {
+            // EL is used outside JSON strings, the whole specification has to be evaluated before being parsed
+            return null;
+        }
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.policy.json2json.jolt;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import io.gravitee.gateway.api.buffer.Buffer;
+import io.netty.buffer.ByteBuf;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.function.UnaryOperator;
+
+/**
+ * Transform a JSON document chunk by chunk, without buffering it.
+ *
+ * When the document is a top-level array, each element is parsed as soon as it is complete, transformed on its own and written to the
+ * output of the chunk that completed it, so that only one element at a time is held in memory. Any other document is transformed as a
+ * whole once fully read.
+ *
+ * Instances are stateful and must be used for a single document, chunks being pushed in order. An empty document produces an empty output.
+ *
+ * @author GraviteeSource Team
+ */
+public final class JsonArrayStreamTransformer {
+
+    private static final byte[] ARRAY_START = { '[' };
+    private static final byte[] SEPARATOR = { ',' };
+    private static final byte[] ARRAY_END = { ']' };
+
+    private final ObjectMapper mapper;
+    private final UnaryOperator<Object> transformation;
+    private final JsonParser parser;
+    private final ByteArrayFeeder feeder;
+    private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+    private boolean started;
+    private boolean array;
+    private boolean firstElement = true;
+    private boolean complete;
+    private int depth;
+    private TokenBuffer value;
+
+    JsonArrayStreamTransformer(final ObjectMapper mapper, final UnaryOperator<Object> transformation) throws IOException {
+        this.mapper = mapper;
+        this.transformation = transformation;
+        this.parser = mapper.getFactory().createNonBlockingByteArrayParser();
+        this.feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+    }
+
+    /**
+     * Parse a chunk of the document.
+     *
+     * @return the transformation of the elements completed by this chunk, possibly empty.
+     */
+    public Buffer onChunk(final Buffer chunk) throws IOException {
+        final Object nativeBuffer = chunk.getNativeBuffer();
+        if (nativeBuffer instanceof ByteBuf && ((ByteBuf) nativeBuffer).hasArray()) {
+            final ByteBuf byteBuf = (ByteBuf) nativeBuffer;
+            final int offset = byteBuf.arrayOffset() + byteBuf.readerIndex();
+            feeder.feedInput(byteBuf.array(), offset, offset + byteBuf.readableBytes());
+        } else {
+            final byte[] bytes = chunk.getBytes();
+            feeder.feedInput(bytes, 0, bytes.length);
+        }
+        // The whole chunk is consumed before returning, the parser does not keep a reference on it afterward
+        parse();
+        return flush();
+    }
+
+    /**
+     * Signal the end of the document.
+     *
+     * @return the last part of the transformation.
+     */
+    public Buffer onEnd() throws IOException {
+        feeder.endOfInput();
+        parse();
+        parser.close();
+        if (started && !complete) {
+            throw new JsonParseException(parser, "Unexpected end of JSON document");
+        }
+        // An empty document stays empty
+        return flush();
+    }
+
+    private void parse() throws IOException {
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.NOT_AVAILABLE && token != null) {
+            if (complete) {
+                throw new JsonParseException(parser, "Unexpected content after the JSON document");
+            }
+            started = true;
+            if (depth == 0 && value == null && !array) {
+                if (token == JsonToken.START_ARRAY) {
+                    array = true;
+                    depth = 1;
+                    output.write(ARRAY_START);
+                    continue;
+                }
+                // Not an array, the document is transformed as a whole
+                value = new TokenBuffer(parser, null);
+            } else if (array && depth == 1) {
+                if (token == JsonToken.END_ARRAY) {
+                    depth = 0;
+                    complete = true;
+                    output.write(ARRAY_END);
+                    continue;
+                }
+                value = new TokenBuffer(parser, null);
+            }
+
+            value.copyCurrentEvent(parser);
+            if (token.isStructStart()) {
+                depth++;
+            } else if (token.isStructEnd()) {
+                depth--;
+            }
+            if (depth == (array ? 1 : 0)) {
+                write(value);
+                value = null;
+                complete = !array;
+            }
+        }
+    }
+
+    private void write(final TokenBuffer tokens) throws IOException {
+        final Object transformed;
+        try (JsonParser tokenParser = tokens.asParser(mapper)) {
+            transformed = transformation.apply(mapper.readValue(tokenParser, Object.class));
+        }
+        if (array) {
+            if (!firstElement) {
+                output.write(SEPARATOR);
+            }
+            firstElement = false;
+        }
+        mapper.writeValue(output, transformed);
+    }
+
+    private Buffer flush() {
+        if (output.size() == 0) {
+            return Buffer.buffer();
+        }
+        final Buffer buffer = Buffer.buffer(output.toByteArray());
+        output.reset();
+        return buffer;
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.policy.json2json.jolt;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import io.gravitee.gateway.api.buffer.Buffer;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.buffer.Unpooled;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+/**
+ * Read and write the JSON payloads handed to JOLT directly from/to bytes, without going through an intermediate {@link String}.
+ * The underlying {@link ObjectMapper} is configured like the one of JOLT {@link com.bazaarvoice.jolt.JsonUtils}.
+ *
+ * @author GraviteeSource Team
+ */
+public final class JsonCodec {
+
+    private static final JsonCodec SHARED = new JsonCodec(createMapper());
+    private static final ScratchPool<ScratchOutputStream> OUTPUTS = new ScratchPool<>(ScratchOutputStream::new);
+
+    private final ObjectMapper mapper;
+
+    private JsonCodec(final ObjectMapper mapper) {
+        this.mapper = mapper;
+    }
+
+    public static JsonCodec shared() {
+        return SHARED;
+    }
+
+    /**
+     * Create a codec with its own symbol table, where Jackson canonicalizes the keys of the payloads it reads. The table is primed with the
+     * given keys, then learns the keys of the payloads read, so that known keys are read without allocating any {@link String}. As Jackson
+     * interns canonical keys, they are the same instances as the keys of a JOLT specification, also read by Jackson.
+     *
+     * Jackson bounds the size of the table, and drops it when it grows too large.
+     */
+    public static JsonCodec withKeys(final Collection<String> keys) {
+        final ObjectMapper mapper = createMapper();
+        if (!keys.isEmpty()) {
+            final Map<String, Object> primer = new LinkedHashMap<>();
+            keys.forEach(key -> primer.put(key, null));
+            // Symbols found by a parser are merged into the table of the factory when it is closed
+            try (JsonParser parser = mapper.getFactory().createParser(mapper.writeValueAsBytes(primer))) {
+                while (parser.nextToken() != null) {
+                    // Only reading the keys
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException("Unable to prime the JSON symbol table", e);
+            }
+        }
+        return new JsonCodec(mapper);
+    }
+
+    /**
+     * Parse the content of a buffer as JSON, reading the underlying bytes in place when possible, see {@link JsonTreeReader}.
+     */
+    public Object read(final Buffer buffer) throws IOException {
+        try (JsonParser parser = parser(mapper.getFactory(), buffer)) {
+            return JsonTreeReader.readValue(parser);
+        }
+    }
+
+    /**
+     * Create a streaming parser reading the content of a buffer in place when possible.
+     */
+    static JsonParser parser(final JsonFactory factory, final Buffer buffer) throws IOException {
+        final Object nativeBuffer = buffer.getNativeBuffer();
+        if (nativeBuffer instanceof ByteBuf) {
+            final ByteBuf byteBuf = (ByteBuf) nativeBuffer;
+            if (byteBuf.hasArray()) {
+                return factory.createParser(byteBuf.array(), byteBuf.arrayOffset() + byteBuf.readerIndex(), byteBuf.readableBytes());
+            }
+            return factory.createParser((InputStream) new ByteBufInputStream(byteBuf.duplicate()));
+        }
+        return factory.createParser(buffer.getBytes());
+    }
+
+    /**
+     * Serialize a JSON tree as UTF-8 bytes, wrapped as is in the returned buffer. Bytes are written to an output reused by the current
+     * thread, see {@link ScratchOutputStream} and {@link ScratchPool}, then copied once to an array of their exact size.
+     */
+    public Buffer write(final Object value) throws IOException {
+        final ScratchOutputStream output = OUTPUTS.acquire();
+        try {
+            mapper.writeValue(output, value);
+            return Buffer.buffer(Unpooled.wrappedBuffer(output.toByteArray()));
+        } finally {
+            output.reset();
+            OUTPUTS.release(output);
+        }
+    }
+
+    /**
+     * @return a transformer applying the given transformation to a JSON document pushed chunk by chunk, see {@link JsonArrayStreamTransformer}.
+     */
+    public JsonArrayStreamTransformer arrayStream(final UnaryOperator<Object> transformation) throws IOException {
+        return new JsonArrayStreamTransformer(mapper, transformation);
+    }
+
+    private static ObjectMapper createMapper() {
+        final ObjectMapper mapper = new ObjectMapper();
+        // Same settings as JOLT: JSON objects are LinkedHashMap and comments are allowed
+        mapper.registerModule(new SimpleModule("json2json").addAbstractTypeMapping(Map.class, LinkedHashMap.class));
+        mapper.configure(JsonParser.Feature.ALLOW_COMMENTS, true);
+        return mapper;
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.policy.json2json.jolt;
+
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * Unsynchronized, growable output stream reused by a thread to serialize payloads: only the final copy of the written bytes, with their
+ * exact size, is allocated for each payload. Its buffer is dropped when it grew beyond {@link #MAX_RETAINED_SIZE}, so that a thread does
+ * not retain the memory of an occasional large payload.
+ *
+ * @author GraviteeSource Team
+ */
+final class ScratchOutputStream extends OutputStream {
+
+    private static final int INITIAL_SIZE = 8 * 1024;
+    static final int MAX_RETAINED_SIZE = 1024 * 1024;
+
+    private byte[] buffer = new byte[INITIAL_SIZE];
+    private int count;
+
+    @Override
+    public void write(final int b) {
+        ensureCapacity(count + 1);
+        buffer[count++] = (byte) b;
+    }
+
+    @Override
+    public void write(final byte[] bytes, final int offset, final int length) {
+        ensureCapacity(count + length);
+        System.arraycopy(bytes, offset, buffer, count, length);
+        count += length;
+    }
+
+    /**
+     * @return a copy of the bytes written since the last {@link #reset()}.
+     */
+    byte[] toByteArray() {
+        return Arrays.copyOf(buffer, count);
+    }
+
+    int size() {
+        return count;
+    }
+
+    void reset() {
+        count = 0;
+        if (buffer.length > MAX_RETAINED_SIZE) {
+            buffer = new byte[INITIAL_SIZE];
+        }
+    }
+
+    private void ensureCapacity(final int capacity) {
+        if (capacity < 0) {
+            throw new OutOfMemoryError("Serialized payload too large");
+        }
+        if (capacity > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(capacity, (int) Math.min(Integer.MAX_VALUE - 8, buffer.length * 2L)));
+        }
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.policy.json2json.jolt;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Supplier;
+
+/**
+ * Scratch objects reused across payloads. A platform thread keeps its own in a {@link ThreadLocal}, while virtual threads, each started
+ * for a single transformation, borrow them from a bounded pool shared by every virtual thread: a scratch object is then built for each
+ * virtual thread transforming a payload at the same time, not for each payload.
+ *
+ * @author GraviteeSource Team
+ */
+final class ScratchPool<T> {
+
+    // Virtual threads transforming payloads at the same time are bounded by the worker pool size of each policy
+    private static final int MAX_POOLED = 256;
+
+    private final Supplier<T> factory;
+    private final ThreadLocal<T> perThread;
+    private final BlockingQueue<T> pooled = new ArrayBlockingQueue<>(MAX_POOLED);
+
+    ScratchPool(final Supplier<T> factory) {
+        this.factory = factory;
+        this.perThread = ThreadLocal.withInitial(factory);
+    }
+
+    /**
+     * @return a scratch object for the exclusive use of the current thread, until given back with {@link #release(Object)}.
+     */
+    T acquire() {
+        if (!Thread.currentThread().isVirtual()) {
+            return perThread.get();
+        }
+        final T scratch = pooled.poll();
+        return scratch != null ? scratch : factory.get();
+    }
+
+    void release(final T scratch) {
+        if (Thread.currentThread().isVirtual()) {
+            // Dropped when the pool is full
+            pooled.offer(scratch);
+        }
+    }
+}
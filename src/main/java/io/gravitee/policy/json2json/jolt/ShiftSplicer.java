@@ -0,0 +1,279 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.policy.json2json.jolt;
+
+import com.bazaarvoice.jolt.Transform;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.StreamReadFeature;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import io.gravitee.gateway.api.buffer.Buffer;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.buffer.UnpooledHeapByteBuf;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <code>shift</code> operation supported by {@link CompiledShiftr}, applied to the bytes of the payload: the keys of the output are written,
+ * and each value moved by the specification is spliced in as is, as a slice of the array holding the input. No JSON tree is built.
+ *
+ * The output does not depend on the input buffer staying allocated: the array of an unpooled heap buffer is never handed over to another
+ * buffer, even once it is released, and it is shared as is. Any other input (direct, pooled or composite buffer) is copied first.
+ *
+ * The output is the same JSON document as the one written after JOLT, but moved values keep their original formatting (whitespace, number
+ * notation, escaped characters). A payload that is not an object, where a value expected to be an object is not, or with comments or
+ * duplicate keys, is left to the regular transformation, as well as a payload failing to parse.
+ *
+ * @author GraviteeSource Team
+ */
+final class ShiftSplicer {
+
+    // Strict parser: comments and duplicate keys would not be written back like Jackson does
+    private static final JsonFactory FACTORY = JsonFactory.builder().enable(StreamReadFeature.STRICT_DUPLICATE_DETECTION).build();
+    private static final byte[] NULL = "null".getBytes(StandardCharsets.US_ASCII);
+
+    private final Step root;
+    private final int leafCount;
+
+    private ShiftSplicer(final Step root, final int leafCount) {
+        this.root = root;
+        this.leafCount = leafCount;
+    }
+
+    /**
+     * @param specification the parsed JOLT specification
+     * @return the splicer of a specification made of a single <code>shift</code> operation supported by {@link CompiledShiftr},
+     * <code>null</code> for any other specification.
+     */
+    static ShiftSplicer of(final Object specification) {
+        if (
+            !(specification instanceof List<?> operations) ||
+            operations.size() != 1 ||
+            !(operations.get(0) instanceof Map<?, ?> operation) ||
+            !"shift".equals(operation.get("operation")) ||
+            !(operation.get("spec") instanceof Map<?, ?> spec)
+        ) {
+            return null;
+        }
+        final Transform shift = CompiledShiftr.of(spec);
+        if (!(shift instanceof CompiledShiftr compiled)) {
+            return null;
+        }
+        final int[] leafCount = { 0 };
+        return new ShiftSplicer(Step.of(compiled.root(), leafCount), leafCount[0]);
+    }
+
+    /**
+     * @return the transformed content, or <code>null</code> if the content has to go through the regular transformation.
+     */
+    Buffer splice(final Buffer content) {
+        final ByteBuf source = content.getNativeBuffer() instanceof ByteBuf byteBuf && isUnpooledHeap(byteBuf)
+            ? byteBuf
+            : Unpooled.wrappedBuffer(content.getBytes());
+        // Start and end offsets of each leaf value, -1 when absent
+        final long[] ranges = new long[leafCount * 2];
+        Arrays.fill(ranges, -1);
+        try (JsonParser parser = JsonCodec.parser(FACTORY, Buffer.buffer(source))) {
+            if (parser.nextToken() != JsonToken.START_OBJECT || !root.scan(parser, ranges)) {
+                return null;
+            }
+        } catch (IOException e) {
+            // Let the transformation report the error
+            return null;
+        }
+
+        final Map<String, Object> output = new LinkedHashMap<>();
+        root.write(ranges, output);
+        if (output.isEmpty()) {
+            return Buffer.buffer(NULL);
+        }
+        final Writer writer = new Writer(source.array(), source.arrayOffset() + source.readerIndex(), ranges);
+        writer.writeObject(output);
+        return Buffer.buffer(writer.finish());
+    }
+
+    private static boolean isUnpooledHeap(final ByteBuf buffer) {
+        ByteBuf root = buffer;
+        while (root.unwrap() != null) {
+            root = root.unwrap();
+        }
+        return buffer.hasArray() && root instanceof UnpooledHeapByteBuf;
+    }
+
+    /**
+     * {@link CompiledShiftr.Node} whose leaves are numbered, to record the location of their value.
+     */
+    private static final class Step {
+
+        private final String[] keys;
+        private final Step[] children;
+        private final String[][][] outputs;
+        private final int[] leaves;
+
+        private Step(final String[] keys, final Step[] children, final String[][][] outputs, final int[] leaves) {
+            this.keys = keys;
+            this.children = children;
+            this.outputs = outputs;
+            this.leaves = leaves;
+        }
+
+        private static Step of(final CompiledShiftr.Node node, final int[] leafCount) {
+            final Step[] children = new Step[node.keys.length];
+            final int[] leaves = new int[node.keys.length];
+            for (int i = 0; i < node.keys.length; i++) {
+                if (node.children[i] != null) {
+                    children[i] = of(node.children[i], leafCount);
+                } else {
+                    leaves[i] = leafCount[0]++;
+                }
+            }
+            return new Step(node.keys, children, node.outputs, leaves);
+        }
+
+        /**
+         * Record the location of the values of the current object, the parser being on its start.
+         *
+         * @return <code>false</code> if a value expected to be an object is not.
+         */
+        private boolean scan(final JsonParser parser, final long[] ranges) throws IOException {
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                final int index = indexOf(parser.currentName());
+                final JsonToken value = parser.nextToken();
+                if (index < 0) {
+                    parser.skipChildren();
+                } else if (children[index] == null) {
+                    final long start = parser.currentTokenLocation().getByteOffset();
+                    if (value.isStructStart()) {
+                        parser.skipChildren();
+                    } else {
+                        parser.finishToken();
+                    }
+                    ranges[leaves[index] * 2] = start;
+                    ranges[leaves[index] * 2 + 1] = parser.currentLocation().getByteOffset();
+                } else if (value == JsonToken.START_OBJECT) {
+                    if (!children[index].scan(parser, ranges)) {
+                        return false;
+                    }
+                } else if (value != JsonToken.VALUE_NULL) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Lay out the output the same way as {@link CompiledShiftr}, with the number of each leaf found instead of its value.
+         */
+        private void write(final long[] ranges, final Map<String, Object> output) {
+            for (int i = 0; i < keys.length; i++) {
+                if (children[i] != null) {
+                    children[i].write(ranges, output);
+                } else if (ranges[leaves[i] * 2] >= 0) {
+                    for (String[] path : outputs[i]) {
+                        put(output, path, leaves[i]);
+                    }
+                }
+            }
+        }
+
+        private int indexOf(final String key) {
+            // Keys are interned by Jackson, both in the specification and in the payload
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] == key || keys[i].equals(key)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        @SuppressWarnings("unchecked")
+        private static void put(final Map<String, Object> output, final String[] path, final Integer leaf) {
+            Map<String, Object> container = output;
+            for (int i = 0; i < path.length - 1; i++) {
+                container = (Map<String, Object>) container.computeIfAbsent(path[i], key -> new LinkedHashMap<String, Object>());
+            }
+            container.put(path[path.length - 1], leaf);
+        }
+    }
+
+    /**
+     * Write the output as a composite buffer, alternating written bytes and slices of the array holding the input.
+     */
+    private static final class Writer {
+
+        private final byte[] source;
+        // Offset of the input in its array
+        private final int offset;
+        private final long[] ranges;
+        private final CompositeByteBuf output = Unpooled.compositeBuffer(Integer.MAX_VALUE);
+        private final ByteArrayOutputStream pending = new ByteArrayOutputStream(64);
+
+        private Writer(final byte[] source, final int offset, final long[] ranges) {
+            this.source = source;
+            this.offset = offset;
+            this.ranges = ranges;
+        }
+
+        @SuppressWarnings("unchecked")
+        private void writeObject(final Map<String, Object> object) {
+            pending.write('{');
+            boolean first = true;
+            for (Map.Entry<String, Object> entry : object.entrySet()) {
+                if (!first) {
+                    pending.write(',');
+                }
+                first = false;
+                pending.write('"');
+                pending.writeBytes(JsonStringEncoder.getInstance().quoteAsUTF8(entry.getKey()));
+                pending.write('"');
+                pending.write(':');
+                if (entry.getValue() instanceof Map<?, ?> child) {
+                    writeObject((Map<String, Object>) child);
+                } else {
+                    splice((Integer) entry.getValue());
+                }
+            }
+            pending.write('}');
+        }
+
+        private void splice(final int leaf) {
+            flush();
+            final int start = (int) ranges[leaf * 2];
+            final int end = (int) ranges[leaf * 2 + 1];
+            output.addComponent(true, Unpooled.wrappedBuffer(source, offset + start, end - start));
+        }
+
+        private void flush() {
+            if (pending.size() > 0) {
+                output.addComponent(true, Unpooled.wrappedBuffer(pending.toByteArray()));
+                pending.reset();
+            }
+        }
+
+        private ByteBuf finish() {
+            flush();
+            return output;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.policy.json2json.jolt;
+
+import io.gravitee.policy.json2json.configuration.TransformationEngine;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+
+/**
+ * Process-wide registry of {@link JoltSpecification}, so that the policy instances of every flow and API configured with the same
+ * specification text and engine share a single compiled specification, its caches and the JIT profile of its transformations.
+ *
+ * Specifications are weakly referenced: the policy instances using a specification are its references, and once they have all been
+ * undeployed and collected, the specification is dropped from the registry.
+ *
+ * @author GraviteeSource Team
+ */
+final class SpecificationRegistry {
+
+    private final ConcurrentMap<Key, SpecificationReference> specifications = new ConcurrentHashMap<>();
+    private final ReferenceQueue<JoltSpecification> collected = new ReferenceQueue<>();
+    private final LongAdder shared = new LongAdder();
+
+    /**
+     * @return the specification registered for the given text and engine, created by the factory when none is alive.
+     */
+    JoltSpecification get(
+        final String specification,
+        final TransformationEngine engine,
+        final BiFunction<String, TransformationEngine, JoltSpecification> factory
+    ) {
+        purge();
+        final Key key = new Key(specification, engine);
+        final SpecificationReference reference = specifications.get(key);
+        JoltSpecification existing = reference != null ? reference.get() : null;
+        if (existing != null) {
+            shared.increment();
+            return existing;
+        }
+        // Compiled outside of the map, so that deploying distinct specifications is not serialized
+        final JoltSpecification created = factory.apply(specification, engine);
+        final SpecificationReference createdReference = new SpecificationReference(key, created, collected);
+        while (true) {
+            final SpecificationReference current = specifications.putIfAbsent(key, createdReference);
+            if (current == null) {
+                return created;
+            }
+            existing = current.get();
+            if (existing != null) {
+                // Another policy registered the same specification in the meantime
+                shared.increment();
+                return existing;
+            }
+            if (specifications.replace(key, current, createdReference)) {
+                return created;
+            }
+        }
+    }
+
+    /**
+     * @return the number of specifications alive in the registry.
+     */
+    int size() {
+        purge();
+        return specifications.size();
+    }
+
+    /**
+     * @return the number of times a specification already registered has been reused instead of being compiled again.
+     */
+    long sharedCount() {
+        return shared.sum();
+    }
+
+    private void purge() {
+        SpecificationReference reference;
+        while ((reference = (SpecificationReference) collected.poll()) != null) {
+            specifications.remove(reference.key, reference);
+        }
+    }
+
+    private static final class Key {
+
+        private final String specification;
+        private final TransformationEngine engine;
+
+        private Key(final String specification, final TransformationEngine engine) {
+            this.specification = specification;
+            this.engine = engine;
+        }
+
+        @Override
+        public boolean equals(final Object other) {
+            return (
+                other instanceof Key &&
+                Objects.equals(specification, ((Key) other).specification) &&
+                engine == ((Key) other).engine
+            );
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Objects.hashCode(specification) + Objects.hashCode(engine);
+        }
+    }
+
+    private static final class SpecificationReference extends WeakReference<JoltSpecification> {
+
+        private final Key key;
+
+        private SpecificationReference(
+            final Key key,
+            final JoltSpecification specification,
+            final ReferenceQueue<JoltSpecification> queue
+        ) {
+            super(specification, queue);
+            this.key = key;
+        }
+    }
+}
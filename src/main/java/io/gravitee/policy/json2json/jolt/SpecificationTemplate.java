@@ -0,0 +1,149 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.policy.json2json.jolt;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JOLT specification parsed once, in which the strings (keys or values) holding EL expressions are recorded.
+ * Rendering the template only requires the results of these expressions: sub-trees without EL are shared as is.
+ *
+ * @author GraviteeSource Team
+ */
+class SpecificationTemplate {
+
+    private final Node root;
+    private final String[] expressions;
+    private final List<Object> staticOperations;
+
+    private SpecificationTemplate(final Node root, final List<String> expressions, final List<Object> staticOperations) {
+        this.root = root;
+        this.expressions = expressions.toArray(new String[0]);
+        this.staticOperations = staticOperations;
+    }
+
+    /**
+     * Build a template from a parsed JOLT specification.
+     *
+     * @param specification the parsed specification (as returned by Jackson: maps, lists and scalar values)
+     * @param elPrefix the prefix identifying a string holding an EL expression
+     */
+    static SpecificationTemplate of(final Object specification, final String elPrefix) {
+        final List<String> expressions = new ArrayList<>();
+        final Node root = node(specification, elPrefix, expressions);
+        final List<Object> staticOperations = new ArrayList<>();
+        if (specification instanceof List<?> operations) {
+            for (Object operation : operations) {
+                final List<String> operationExpressions = new ArrayList<>();
+                node(operation, elPrefix, operationExpressions);
+                if (operationExpressions.isEmpty()) {
+                    staticOperations.add(operation);
+                }
+            }
+        }
+        return new SpecificationTemplate(root, expressions, staticOperations);
+    }
+
+    /**
+     * @return the EL expressions of the specification, in the order expected by {@link #render(String[])}.
+     */
+    String[] expressions() {
+        return expressions;
+    }
+
+    /**
+     * @return the operations of the specification without any EL expression.
+     */
+    List<Object> staticOperations() {
+        return staticOperations;
+    }
+
+    /**
+     * Build the specification tree, replacing each expression by its value.
+     */
+    Object render(final String[] values) {
+        return root.render(values);
+    }
+
+    /**
+     * Build a key identifying the rendered specification for the given values.
+     */
+    static String key(final String[] values) {
+        final StringBuilder key = new StringBuilder();
+        for (String value : values) {
+            // Prefix each value with its length so that two different sets of values can't produce the same key
+            key.append(value.length()).append(':').append(value);
+        }
+        return key.toString();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Node node(final Object value, final String elPrefix, final List<String> expressions) {
+        if (value instanceof String && ((String) value).contains(elPrefix)) {
+            final int index = expressions.size();
+            expressions.add((String) value);
+            return values -> values[index];
+        }
+
+        if (value instanceof Map) {
+            final Map<String, Object> map = (Map<String, Object>) value;
+            final List<Node> keys = new ArrayList<>(map.size());
+            final List<Node> children = new ArrayList<>(map.size());
+            final int before = expressions.size();
+            map.forEach((k, v) -> {
+                keys.add(node(k, elPrefix, expressions));
+                children.add(node(v, elPrefix, expressions));
+            });
+            if (before == expressions.size()) {
+                return values -> value;
+            }
+            return values -> {
+                final Map<String, Object> rendered = new LinkedHashMap<>();
+                for (int i = 0; i < keys.size(); i++) {
+                    rendered.put((String) keys.get(i).render(values), children.get(i).render(values));
+                }
+                return rendered;
+            };
+        }
+
+        if (value instanceof List) {
+            final List<Object> list = (List<Object>) value;
+            final List<Node> children = new ArrayList<>(list.size());
+            final int before = expressions.size();
+            list.forEach(v -> children.add(node(v, elPrefix, expressions)));
+            if (before == expressions.size()) {
+                return values -> value;
+            }
+            return values -> {
+                final List<Object> rendered = new ArrayList<>(children.size());
+                for (Node child : children) {
+                    rendered.add(child.render(values));
+                }
+                return rendered;
+            };
+        }
+
+        return values -> value;
+    }
+
+    @FunctionalInterface
+    private interface Node {
+        Object render(String[] values);
+    }
+}
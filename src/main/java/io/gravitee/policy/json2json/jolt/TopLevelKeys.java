@@ -0,0 +1,144 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.policy.json2json.jolt;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.StreamReadFeature;
+import io.gravitee.gateway.api.buffer.Buffer;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Top-level keys of a JSON object a specification may act upon, for specifications leaving any other object unchanged.
+ *
+ * Only chains made of <code>remove</code> operations with literal top-level keys, and of <code>shift</code> operations moving literal
+ * top-level keys and copying everything else as is (<code>"*": "&amp;"</code>), are supported. Such a chain does not change an object
+ * holding none of these keys, except an empty one for <code>shift</code>, which outputs <code>null</code>.
+ *
+ * @author GraviteeSource Team
+ */
+final class TopLevelKeys {
+
+    private static final String OPERATION = "operation";
+    private static final String SPEC = "spec";
+    private static final String STAR = "*";
+    private static final String SHIFT_UNSUPPORTED_CHARACTERS = "*&@$#[]\\|()";
+
+    // Strict parser: a document with comments or duplicate keys would not be written back identically, it goes through the transformation
+    private static final JsonFactory FACTORY = JsonFactory.builder()
+        .enable(StreamReadFeature.STRICT_DUPLICATE_DETECTION)
+        .build();
+
+    private final Set<String> keys;
+    private final boolean nonEmpty;
+
+    private TopLevelKeys(final Set<String> keys, final boolean nonEmpty) {
+        this.keys = keys;
+        this.nonEmpty = nonEmpty;
+    }
+
+    /**
+     * @param specification the parsed JOLT specification
+     * @return the keys the specification acts upon, <code>null</code> if the specification is not supported.
+     */
+    static TopLevelKeys of(final Object specification) {
+        if (!(specification instanceof List<?> operations) || operations.isEmpty()) {
+            return null;
+        }
+        final Set<String> keys = new HashSet<>();
+        boolean nonEmpty = false;
+        for (Object operation : operations) {
+            if (!(operation instanceof Map<?, ?> entry) || !(entry.get(SPEC) instanceof Map<?, ?> spec)) {
+                return null;
+            }
+            final Object name = entry.get(OPERATION);
+            if ("remove".equals(name) && addRemoved(spec, keys)) {
+                continue;
+            }
+            if ("shift".equals(name) && addShifted(spec, keys)) {
+                nonEmpty = true;
+                continue;
+            }
+            return null;
+        }
+        return new TopLevelKeys(keys, nonEmpty);
+    }
+
+    /**
+     * Scan the top-level keys of the content, without building any tree.
+     *
+     * @return <code>true</code> if the content is a JSON object holding none of the keys, and is thus left unchanged by the specification.
+     */
+    boolean isUnchanged(final Buffer content) {
+        try (JsonParser parser = JsonCodec.parser(FACTORY, content)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return false;
+            }
+            boolean empty = true;
+            JsonToken token;
+            while ((token = parser.nextToken()) == JsonToken.FIELD_NAME) {
+                if (keys.contains(parser.currentName())) {
+                    return false;
+                }
+                empty = false;
+                parser.nextToken();
+                parser.skipChildren();
+            }
+            // Trailing content, such as another document, makes the payload invalid for the transformation
+            return token == JsonToken.END_OBJECT && parser.nextToken() == null && !(nonEmpty && empty);
+        } catch (IOException e) {
+            // Let the transformation report the error
+            return false;
+        }
+    }
+
+    private static boolean addRemoved(final Map<?, ?> spec, final Set<String> keys) {
+        for (Object key : spec.keySet()) {
+            for (String alternative : key.toString().split("\\|")) {
+                if (alternative.contains(STAR)) {
+                    return false;
+                }
+                keys.add(alternative);
+            }
+        }
+        return true;
+    }
+
+    private static boolean addShifted(final Map<?, ?> spec, final Set<String> keys) {
+        final Object copy = spec.get(STAR);
+        if (!"&".equals(copy) && !"&0".equals(copy)) {
+            return false;
+        }
+        for (Object key : spec.keySet()) {
+            final String literal = key.toString();
+            if (STAR.equals(literal)) {
+                continue;
+            }
+            for (int i = 0; i < literal.length(); i++) {
+                if (SHIFT_UNSUPPORTED_CHARACTERS.indexOf(literal.charAt(i)) >= 0) {
+                    return false;
+                }
+            }
+            keys.add(literal);
+        }
+        return true;
+    }
+}
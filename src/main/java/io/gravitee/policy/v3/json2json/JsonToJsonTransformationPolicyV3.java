@@ -16,12 +16,12 @@
 package io.gravitee.policy.v3.json2json;
 
 import com.bazaarvoice.jolt.Chainr;
-import com.bazaarvoice.jolt.JsonUtils;
 import io.gravitee.common.http.MediaType;
 import io.gravitee.gateway.api.ExecutionContext;
 import io.gravitee.gateway.api.Request;
 import io.gravitee.gateway.api.Response;
 import io.gravitee.gateway.api.buffer.Buffer;
+import io.gravitee.gateway.api.http.HttpHeaders;
 import io.gravitee.gateway.api.http.stream.TransformableRequestStreamBuilder;
 import io.gravitee.gateway.api.http.stream.TransformableResponseStreamBuilder;
 import io.gravitee.gateway.api.http.stream.TransformableStreamBuilder;
@@ -32,9 +32,12 @@ import io.gravitee.policy.api.annotations.OnRequestContent;
 import io.gravitee.policy.api.annotations.OnResponseContent;
 import io.gravitee.policy.json2json.configuration.JsonToJsonTransformationPolicyConfiguration;
 import io.gravitee.policy.json2json.configuration.PolicyScope;
-import java.util.List;
+import io.gravitee.policy.json2json.jolt.JoltSpecification;
+import io.gravitee.policy.json2json.jolt.JsonCodec;
 import java.util.function.Function;
+import lombok.extern.slf4j.Slf4j;
 
+@Slf4j
 public class JsonToJsonTransformationPolicyV3 {
 
     /**
@@ -42,13 +45,46 @@ public class JsonToJsonTransformationPolicyV3 {
      */
     protected final JsonToJsonTransformationPolicyConfiguration configuration;
 
+    /**
+     * JOLT specification, compiled upfront when it does not rely on EL
+     */
+    protected final JoltSpecification specification;
+
+    /**
+     * Codec of the payloads, sharing the keys of the specification
+     */
+    protected final JsonCodec codec;
+
+    /**
+     * Whether bodies are streamed, only when the specification can be applied to each element of an array on its own
+     */
+    protected final boolean streaming;
+
     public JsonToJsonTransformationPolicyV3(final JsonToJsonTransformationPolicyConfiguration jsonToJsonTransformationPolicyConfiguration) {
         this.configuration = jsonToJsonTransformationPolicyConfiguration;
+        this.specification = JoltSpecification.of(
+            jsonToJsonTransformationPolicyConfiguration.getSpecification(),
+            jsonToJsonTransformationPolicyConfiguration.getEngine()
+        );
+        this.codec = specification.codec();
+        this.streaming = jsonToJsonTransformationPolicyConfiguration.isStreaming() && specification.isElementWise();
+        if (jsonToJsonTransformationPolicyConfiguration.isStreaming() && !streaming) {
+            log.warn("The JOLT specification does not only apply to the elements of an array, bodies are transformed as a whole");
+        }
+        if (jsonToJsonTransformationPolicyConfiguration.isWarmUp()) {
+            specification.warmUp(
+                jsonToJsonTransformationPolicyConfiguration.getWarmUpPayload(),
+                jsonToJsonTransformationPolicyConfiguration.getWarmUpIterations()
+            );
+        }
     }
 
     @OnResponseContent
     public ReadWriteStream onResponseContent(Response response, PolicyChain chain, ExecutionContext executionContext) {
         if (configuration.getScope() == PolicyScope.RESPONSE) {
+            if (streaming) {
+                return streaming(response.headers(), chain, executionContext);
+            }
             TransformableStreamBuilder builder = TransformableResponseStreamBuilder.on(response)
                 .chain(chain)
                 .transform(map(executionContext));
@@ -66,6 +102,9 @@ public class JsonToJsonTransformationPolicyV3 {
     @OnRequestContent
     public ReadWriteStream onRequestContent(Request request, PolicyChain chain, ExecutionContext executionContext) {
         if (configuration.getScope() == PolicyScope.REQUEST) {
+            if (streaming) {
+                return streaming(request.headers(), chain, executionContext);
+            }
             TransformableStreamBuilder builder = TransformableRequestStreamBuilder.on(request)
                 .chain(chain)
                 .transform(map(executionContext));
@@ -80,19 +119,26 @@ public class JsonToJsonTransformationPolicyV3 {
         return null;
     }
 
+    private ReadWriteStream streaming(final HttpHeaders headers, final PolicyChain chain, final ExecutionContext executionContext) {
+        return new StreamingTransformationStream(
+            headers,
+            chain,
+            () -> specification.resolveNow(executionContext::getTemplateEngine),
+            codec,
+            configuration.isOverrideContentType()
+        );
+    }
+
     private Function<Buffer, Buffer> map(ExecutionContext executionContext) {
         return input -> {
             try {
-                // Get JOLT specification and transform it using internal template engine
-                String specification = executionContext.getTemplateEngine().convert(configuration.getSpecification());
-
-                List<Object> chainrSpecJSON = JsonUtils.jsonToList(specification);
-                Chainr chainr = Chainr.fromSpec(chainrSpecJSON);
+                // Get JOLT specification and transform it using internal template engine when it contains EL
+                Chainr chainr = specification.resolveNow(executionContext::getTemplateEngine);
 
-                Object inputJSON = JsonUtils.jsonToObject(input.toString());
+                Object inputJSON = codec.read(input);
                 Object transformedOutput = chainr.transform(inputJSON);
 
-                return Buffer.buffer(JsonUtils.toJsonString(transformedOutput));
+                return codec.write(transformedOutput);
             } catch (Exception ex) {
                 throw new TransformationException("Unable to apply JSON to JSON transformation: " + ex.getMessage(), ex);
             }
@@ -0,0 +1,117 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.policy.v3.json2json;
+
+import com.bazaarvoice.jolt.Chainr;
+import io.gravitee.common.http.HttpStatusCode;
+import io.gravitee.common.http.MediaType;
+import io.gravitee.gateway.api.buffer.Buffer;
+import io.gravitee.gateway.api.http.HttpHeaderNames;
+import io.gravitee.gateway.api.http.HttpHeaders;
+import io.gravitee.gateway.api.stream.BufferedReadWriteStream;
+import io.gravitee.gateway.api.stream.SimpleReadWriteStream;
+import io.gravitee.policy.api.PolicyChain;
+import io.gravitee.policy.api.PolicyResult;
+import io.gravitee.policy.json2json.jolt.JsonArrayStreamTransformer;
+import io.gravitee.policy.json2json.jolt.JsonCodec;
+import java.util.function.Supplier;
+
+/**
+ * Stream transforming the body chunk by chunk with a {@link JsonArrayStreamTransformer}, instead of buffering it like the
+ * {@link io.gravitee.gateway.api.http.stream.TransformableStreamBuilder}.
+ *
+ * @author GraviteeSource Team
+ */
+class StreamingTransformationStream extends BufferedReadWriteStream {
+
+    private final HttpHeaders headers;
+    private final PolicyChain chain;
+    private final Supplier<Chainr> chainr;
+    private final JsonCodec codec;
+    private final boolean overrideContentType;
+
+    private JsonArrayStreamTransformer transformer;
+    private boolean failed;
+
+    StreamingTransformationStream(
+        final HttpHeaders headers,
+        final PolicyChain chain,
+        final Supplier<Chainr> chainr,
+        final JsonCodec codec,
+        final boolean overrideContentType
+    ) {
+        this.headers = headers;
+        this.chain = chain;
+        this.chainr = chainr;
+        this.codec = codec;
+        this.overrideContentType = overrideContentType;
+    }
+
+    @Override
+    public SimpleReadWriteStream<Buffer> write(final Buffer content) {
+        if (failed) {
+            return this;
+        }
+        try {
+            final Buffer transformed = transformer().onChunk(content);
+            if (transformed.length() > 0) {
+                super.write(transformed);
+            }
+        } catch (Exception e) {
+            fail(e);
+        }
+        return this;
+    }
+
+    @Override
+    public void end() {
+        if (failed) {
+            return;
+        }
+        try {
+            final Buffer transformed = transformer().onEnd();
+            if (transformed.length() > 0) {
+                super.write(transformed);
+            }
+            super.end();
+        } catch (Exception e) {
+            fail(e);
+        }
+    }
+
+    private JsonArrayStreamTransformer transformer() throws Exception {
+        if (transformer == null) {
+            // The length of the transformed body is not known upfront
+            headers.remove(HttpHeaderNames.CONTENT_LENGTH);
+            headers.set(HttpHeaderNames.TRANSFER_ENCODING, "chunked");
+            if (overrideContentType) {
+                headers.set(HttpHeaderNames.CONTENT_TYPE, MediaType.APPLICATION_JSON);
+            }
+            transformer = codec.arrayStream(chainr.get()::transform);
+        }
+        return transformer;
+    }
+
+    private void fail(final Exception e) {
+        failed = true;
+        chain.streamFailWith(
+            PolicyResult.failure(
+                HttpStatusCode.INTERNAL_SERVER_ERROR_500,
+                "Unable to apply JSON to JSON transformation: " + e.getMessage()
+            )
+        );
+    }
+}
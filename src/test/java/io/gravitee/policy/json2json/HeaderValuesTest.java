@@ -0,0 +1,75 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.policy.json2json;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.gravitee.common.http.MediaType;
+import io.gravitee.gateway.api.buffer.Buffer;
+import io.gravitee.gateway.api.http.HttpHeaderNames;
+import io.gravitee.gateway.api.http.HttpHeaders;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class HeaderValuesTest {
+
+    @ParameterizedTest
+    @ValueSource(ints = { 0, 7, 9, 99, 1024, Integer.MAX_VALUE - 1 })
+    void should_encode_kafka_content_length_as_decimal(int length) {
+        Map<String, Buffer> recordHeaders = new HashMap<>();
+
+        Buffer contentLength = HeaderValues.contentLength(recordHeaders, length);
+
+        assertThat(contentLength.toString()).isEqualTo(Integer.toString(length));
+        recordHeaders.put(HttpHeaderNames.CONTENT_LENGTH, contentLength);
+        assertThat(HeaderValues.contentLength(recordHeaders, length)).isNull();
+        assertThat(HeaderValues.contentLength(recordHeaders, length + 1).toString()).isEqualTo(Integer.toString(length + 1));
+    }
+
+    @Test
+    void should_only_replace_kafka_content_type_when_not_json() {
+        Map<String, Buffer> recordHeaders = new HashMap<>();
+        assertThat(HeaderValues.jsonContentType(recordHeaders).toString()).isEqualTo(MediaType.APPLICATION_JSON);
+
+        recordHeaders.put(HttpHeaderNames.CONTENT_TYPE, Buffer.buffer("application/problem+json"));
+        assertThat(HeaderValues.jsonContentType(recordHeaders).toString()).isEqualTo(MediaType.APPLICATION_JSON);
+
+        recordHeaders.put(HttpHeaderNames.CONTENT_TYPE, Buffer.buffer(MediaType.APPLICATION_JSON));
+        assertThat(HeaderValues.jsonContentType(recordHeaders)).isNull();
+    }
+
+    @Test
+    void should_update_http_headers() {
+        HttpHeaders headers = HttpHeaders.create();
+        headers.set(HttpHeaderNames.CONTENT_LENGTH, "12");
+        headers.set(HttpHeaderNames.CONTENT_TYPE, MediaType.TEXT_PLAIN);
+
+        HeaderValues.setContentLength(headers, 21);
+        HeaderValues.setJsonContentType(headers);
+
+        assertThat(headers.get(HttpHeaderNames.CONTENT_LENGTH)).isEqualTo("21");
+        assertThat(headers.get(HttpHeaderNames.CONTENT_TYPE)).isEqualTo(MediaType.APPLICATION_JSON);
+        assertThat(HeaderValues.isDecimal("21", 21)).isTrue();
+        assertThat(HeaderValues.isDecimal("021", 21)).isFalse();
+        assertThat(HeaderValues.isDecimal(null, 21)).isFalse();
+    }
+}
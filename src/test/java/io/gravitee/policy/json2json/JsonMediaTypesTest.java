@@ -0,0 +1,55 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.policy.json2json;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.gravitee.gateway.api.buffer.Buffer;
+import java.util.List;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class JsonMediaTypesTest {
+
+    private final JsonMediaTypes jsonMediaTypes = new JsonMediaTypes(List.of("Text/JSON"));
+
+    @ParameterizedTest
+    @ValueSource(
+        strings = {
+            "application/json",
+            "Application/JSON; charset=UTF-8",
+            " application/json ;charset=utf-8",
+            "application/problem+json",
+            "application/vnd.anything.v1+JSON",
+            "text/json",
+        }
+    )
+    void should_match_json_media_types(String contentType) {
+        assertThat(jsonMediaTypes.isJson(contentType)).isTrue();
+        assertThat(jsonMediaTypes.isJson(contentType)).isTrue();
+        assertThat(jsonMediaTypes.isJson(Buffer.buffer(contentType))).isTrue();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = { "", "text/plain", "application/jsonp-ish", "application/x-json-stream", "+json", "application/xml; profile=json" })
+    void should_not_match_other_media_types(String contentType) {
+        assertThat(jsonMediaTypes.isJson(contentType)).isFalse();
+        assertThat(jsonMediaTypes.isJson(Buffer.buffer(contentType))).isFalse();
+    }
+}
@@ -23,6 +23,7 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
+import io.gravitee.common.http.HttpMethod;
 import io.gravitee.common.http.MediaType;
 import io.gravitee.el.TemplateContext;
 import io.gravitee.el.TemplateEngine;
@@ -31,22 +32,36 @@ import io.gravitee.gateway.api.http.HttpHeaderNames;
 import io.gravitee.gateway.reactive.api.ExecutionFailure;
 import io.gravitee.gateway.reactive.api.context.kafka.KafkaExecutionContext;
 import io.gravitee.gateway.reactive.api.context.kafka.KafkaMessageExecutionContext;
+import io.gravitee.gateway.reactive.api.message.Message;
 import io.gravitee.gateway.reactive.api.message.kafka.KafkaMessage;
 import io.gravitee.gateway.reactive.core.context.interruption.InterruptionFailureException;
+import io.gravitee.policy.json2json.configuration.ExecutionMode;
 import io.gravitee.policy.json2json.configuration.JsonToJsonTransformationPolicyConfiguration;
+import io.gravitee.policy.json2json.configuration.OversizeAction;
 import io.gravitee.policy.json2json.configuration.PolicyScope;
+import io.gravitee.policy.json2json.jolt.JoltSpecification;
 import io.gravitee.policy.test.*;
 import io.gravitee.reporter.api.v4.metric.Metrics;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import io.reactivex.rxjava3.core.Completable;
 import io.reactivex.rxjava3.core.Flowable;
 import io.reactivex.rxjava3.core.Maybe;
 import io.reactivex.rxjava3.processors.ReplayProcessor;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
+import io.vertx.micrometer.MicrometerMetricsOptions;
+import io.vertx.micrometer.backends.BackendRegistries;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.IntStream;
 import org.apache.kafka.common.protocol.Errors;
 import org.junit.jupiter.api.DisplayNameGeneration;
 import org.junit.jupiter.api.DisplayNameGenerator;
@@ -66,6 +81,8 @@ public class JsonToJsonTransformationPolicyTest {
     private static final String VALID_MESSAGE_JOLT =
         "[\n{\n\"operation\": \"shift\",\n\"spec\": {\n\"my-header\": \"{#message.headers['X-MESSAGE-HEADER']}\",\n\"_id\": \"id\",\n\"*\": {\n\"$\": \"&1\"\n}\n}\n},\n{\n\"operation\": \"remove\",\n\"spec\": {\n\"__v\": \"\"\n}\n}, {\n\"operation\": \"default\",\n\"spec\": {\n\"my-header\": \"{#message.headers['X-MESSAGE-HEADER']}\"}}\n]";
 
+    // Only matches literal top-level keys, applied to each element of a streamed array
+    private static final String ELEMENT_JOLT = "[{\"operation\": \"shift\", \"spec\": {\"_id\": \"id\", \"name\": \"name\"}}]";
     private static final String INVALID_JOLT = "[invalid, json, file]";
     public static final String INPUT_CONTENT = "{ \"_id\": \"57762dc6ab7d620000000001\", \"name\": \"name\", \"__v\": 0}";
     public static final JsonObject EXPECTED_CONTENT = new JsonObject("{ \"id\": \"57762dc6ab7d620000000001\", \"name\": \"name\"}");
@@ -139,6 +156,38 @@ public class JsonToJsonTransformationPolicyTest {
                 });
         }
 
+        @Test
+        void should_stream_transformation_of_each_array_element_when_configured() {
+            var ctx = new ExecutionContextBuilder().request(aRequest().jsonBody("[" + INPUT_CONTENT + ", " + INPUT_CONTENT + "]").build()).build();
+            var configuration = config(ELEMENT_JOLT, true);
+            configuration.setStreaming(true);
+            policy(configuration).onRequest(ctx).test().assertComplete();
+
+            ctx
+                .request()
+                .body()
+                .test()
+                .assertComplete()
+                .assertValue(buffer -> {
+                    assertThat(new JsonArray(buffer.toString())).containsExactly(EXPECTED_CONTENT, EXPECTED_CONTENT);
+                    return true;
+                });
+            assertThat(ctx.request().headers().toSingleValueMap())
+                .doesNotContainKey(HttpHeaderNames.CONTENT_LENGTH)
+                .contains(Map.entry(HttpHeaderNames.TRANSFER_ENCODING, "chunked"));
+        }
+
+        @Test
+        void should_transform_whole_array_when_specification_matches_its_indexes() {
+            var ctx = new ExecutionContextBuilder().request(aRequest().jsonBody("[{\"id\": 1}, {\"id\": 2}]").build()).build();
+            var configuration = config("[{\"operation\": \"shift\", \"spec\": {\"*\": {\"id\": \"ids[&1]\"}}}]", true);
+            configuration.setStreaming(true);
+            policy(configuration).onRequest(ctx).test().assertComplete();
+
+            ctx.request().body().test().assertValue(buffer -> buffer.toString().equals("{\"ids\":[1,2]}"));
+            assertThat(ctx.request().headers().get(HttpHeaderNames.CONTENT_LENGTH)).isEqualTo("13");
+        }
+
         @ParameterizedTest
         @NullSource
         @ValueSource(strings = { MediaType.TEXT_PLAIN, "" })
@@ -285,6 +334,28 @@ public class JsonToJsonTransformationPolicyTest {
                 });
         }
 
+        @Test
+        void should_emit_messages_transformed_concurrently_in_order() {
+            var inputs = IntStream.range(0, 50)
+                .mapToObj(i -> aMessage().content("{\"id\": " + i + ", \"padding\": \"" + "x".repeat((50 - i) * 100) + "\"}").build())
+                .toArray(Message[]::new);
+            var ctx = new ExecutionContextBuilder().request(aRequest().messages(inputs).build()).build();
+            var spec = "[{\"operation\": \"shift\", \"spec\": {\"id\": \"ref\"}}]";
+
+            var configuration = JsonToJsonTransformationPolicyConfiguration.builder()
+                .specification(spec)
+                .messageConcurrency(4)
+                .workerThresholdBytes(2000)
+                .build();
+
+            policy(configuration).onMessageRequest(ctx).test().assertComplete();
+
+            var messages = ctx.request().messages().test().awaitDone(10, TimeUnit.SECONDS).assertComplete().values();
+            assertThat(messages)
+                .extracting(message -> message.content().toString())
+                .containsExactlyElementsOf(IntStream.range(0, 50).mapToObj(i -> "{\"ref\":" + i + "}").toList());
+        }
+
         @Test
         void should_override_message_content_type_header_when_configured() {
             var ctx = new ExecutionContextBuilder()
@@ -714,6 +785,66 @@ public class JsonToJsonTransformationPolicyTest {
                 .assertComplete()
                 .assertValue(messagesList -> messagesList.stream().allMatch(message -> message.content().toString().equals("")));
         }
+
+        @Test
+        void should_transform_records_by_batch_in_order() {
+            KafkaMessageExecutionContext ctx = mock(KafkaMessageExecutionContext.class);
+            final KafkaMessageRequestStub request = new KafkaMessageRequestStub();
+            when(ctx.request()).thenReturn(request);
+            when(ctx.executionContext()).thenReturn(mock(KafkaExecutionContext.class));
+
+            List<KafkaMessage> messages = new ArrayList<>();
+            for (int i = 0; i < 5; i++) {
+                messages.add(new KafkaMessageStub("{ \"_id\": \"" + i + "\", \"__v\": 0}"));
+            }
+
+            JsonToJsonTransformationPolicyConfiguration configuration = config(VALID_JOLT, false);
+            configuration.setKafkaBatchSize(2);
+            JsonToJsonTransformationPolicy policy = new JsonToJsonTransformationPolicy(configuration);
+
+            policy
+                .onMessageRequest(ctx)
+                .doOnComplete(() -> request.messages(Flowable.fromIterable(messages)))
+                .test()
+                .awaitDone(3, TimeUnit.SECONDS)
+                .assertComplete();
+
+            var transformed = request.messages().test().awaitDone(3, TimeUnit.SECONDS).assertComplete().values();
+            assertThat(transformed)
+                .extracting(message -> message.content().toString())
+                .containsExactly("{\"id\":\"0\"}", "{\"id\":\"1\"}", "{\"id\":\"2\"}", "{\"id\":\"3\"}", "{\"id\":\"4\"}");
+        }
+
+        @Test
+        void should_only_interrupt_invalid_record_of_a_batch() {
+            KafkaMessageExecutionContext ctx = mock(KafkaMessageExecutionContext.class);
+            final KafkaMessageRequestStub request = new KafkaMessageRequestStub();
+            when(ctx.request()).thenReturn(request);
+            KafkaExecutionContext executionContext = mock(KafkaExecutionContext.class);
+            when(executionContext.interruptWith(Errors.UNKNOWN_SERVER_ERROR)).thenReturn(Completable.complete());
+            when(ctx.executionContext()).thenReturn(executionContext);
+
+            List<KafkaMessage> messages = List.of(
+                new KafkaMessageStub(INPUT_CONTENT),
+                new KafkaMessageStub("{ invalid json"),
+                new KafkaMessageStub(INPUT_CONTENT)
+            );
+
+            JsonToJsonTransformationPolicyConfiguration configuration = config(VALID_JOLT, false);
+            configuration.setKafkaBatchSize(10);
+            JsonToJsonTransformationPolicy policy = new JsonToJsonTransformationPolicy(configuration);
+
+            policy
+                .onMessageRequest(ctx)
+                .doOnComplete(() -> request.messages(Flowable.fromIterable(messages)))
+                .test()
+                .awaitDone(3, TimeUnit.SECONDS)
+                .assertComplete();
+
+            var transformed = request.messages().test().awaitDone(3, TimeUnit.SECONDS).assertComplete().values();
+            assertThat(transformed).containsExactly(messages.get(0), messages.get(2));
+            assertThat(transformed).allMatch(message -> new JsonObject(message.content().toString()).equals(EXPECTED_CONTENT));
+        }
     }
 
     @Nested
@@ -954,6 +1085,371 @@ public class JsonToJsonTransformationPolicyTest {
         }
     }
 
+    @Nested
+    class payloadSizeGuard {
+
+        @Test
+        void should_reject_request_body_exceeding_max_input_bytes_with_413() {
+            var ctx = new ExecutionContextBuilder().request(aRequest().jsonBody(INPUT_CONTENT).build()).build();
+            ctx.metrics(Mockito.mock(Metrics.class));
+            var configuration = config(VALID_JOLT, false);
+            configuration.setMaxInputBytes(INPUT_CONTENT.length() - 1);
+            configuration.setOversizeAction(OversizeAction.REJECT);
+
+            policy(configuration)
+                .onRequest(ctx)
+                .test()
+                .assertError(e -> {
+                    assertThat(e)
+                        .isInstanceOf(InterruptionFailureException.class)
+                        .extracting(error -> ((InterruptionFailureException) error).getExecutionFailure())
+                        .extracting(ExecutionFailure::statusCode, ExecutionFailure::key)
+                        .containsExactly(413, "JSON_PAYLOAD_TOO_LARGE");
+                    return true;
+                });
+        }
+
+        @Test
+        void should_pass_request_body_through_when_transformation_exceeds_max_output_bytes() {
+            var ctx = new ExecutionContextBuilder().request(aRequest().jsonBody(INPUT_CONTENT).build()).build();
+            var configuration = config(VALID_JOLT, false);
+            configuration.setMaxOutputBytes(1);
+
+            policy(configuration).onRequest(ctx).test().assertComplete();
+
+            ctx.request().body().test().assertComplete().assertValue(buffer -> buffer.toString().equals(INPUT_CONTENT));
+            assertThat(ctx.request().headers().get(HttpHeaderNames.CONTENT_LENGTH)).isEqualTo(Integer.toString(INPUT_CONTENT.length()));
+        }
+
+        @Test
+        void should_reject_streamed_body_declaring_a_length_exceeding_max_input_bytes_with_413() {
+            var body = "[" + INPUT_CONTENT + "]";
+            var ctx = new ExecutionContextBuilder().request(aRequest().jsonBody(body).build()).build();
+            ctx.metrics(Mockito.mock(Metrics.class));
+            var configuration = config(ELEMENT_JOLT, false);
+            configuration.setStreaming(true);
+            configuration.setMaxInputBytes(body.length() - 1);
+            configuration.setOversizeAction(OversizeAction.REJECT);
+
+            policy(configuration).onRequest(ctx).test().assertError(this::isPayloadTooLarge);
+        }
+
+        @Test
+        void should_interrupt_streamed_body_exceeding_max_input_bytes_whatever_the_oversize_action() {
+            var body = "[" + INPUT_CONTENT + "]";
+            var ctx = new ExecutionContextBuilder().request(aRequest().jsonBody(body).build()).build();
+            ctx.metrics(Mockito.mock(Metrics.class));
+            ctx.request().headers().remove(HttpHeaderNames.CONTENT_LENGTH);
+            var configuration = config(ELEMENT_JOLT, false);
+            configuration.setStreaming(true);
+            configuration.setMaxInputBytes(body.length() - 1);
+
+            policy(configuration).onRequest(ctx).test().assertError(this::isPayloadTooLarge);
+        }
+
+        private boolean isPayloadTooLarge(final Throwable e) {
+            assertThat(e)
+                .isInstanceOf(InterruptionFailureException.class)
+                .extracting(error -> ((InterruptionFailureException) error).getExecutionFailure())
+                .extracting(ExecutionFailure::statusCode, ExecutionFailure::key)
+                .containsExactly(413, "JSON_PAYLOAD_TOO_LARGE");
+            return true;
+        }
+
+        @Test
+        void should_drop_messages_exceeding_max_input_bytes() {
+            var smallContent = "{ \"_id\": \"1\"}";
+            var ctx = new ExecutionContextBuilder()
+                .request(aRequest().messages(aMessage().content(INPUT_CONTENT).build(), aMessage().content(smallContent).build()).build())
+                .build();
+            var configuration = config(VALID_JOLT, false);
+            configuration.setMaxInputBytes(smallContent.length());
+            configuration.setOversizeAction(OversizeAction.DROP);
+
+            policy(configuration).onMessageRequest(ctx).test().assertComplete();
+
+            var messages = ctx.request().messages().test().assertComplete().values();
+            assertThat(messages).hasSize(1);
+            assertThat(messages.get(0).content()).hasToString("{\"id\":\"1\"}");
+        }
+    }
+
+    @Nested
+    class metrics {
+
+        private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        // Function meters read objects kept reachable by the policy, which must outlive the assertions
+        private JsonToJsonTransformationPolicy policy;
+
+        @Test
+        void should_register_meters_in_gateway_registry() {
+            var gatewayRegistry = new SimpleMeterRegistry();
+            BackendRegistries.setupBackend(new MicrometerMetricsOptions().setEnabled(true), gatewayRegistry);
+            try {
+                var ctx = new ExecutionContextBuilder().request(aRequest().jsonBody(INPUT_CONTENT).build()).build();
+                policy = new JsonToJsonTransformationPolicy(config(VALID_JOLT, false));
+                policy.onRequest(ctx).test().assertComplete();
+                ctx.request().body().test().assertComplete();
+
+                assertThat(gatewayRegistry.get("gravitee.policy.json2json.phase").tag("phase", "parse").timer().count()).isEqualTo(1);
+                assertThat(gatewayRegistry.get("gravitee.policy.json2json.compile").functionTimer().count()).isEqualTo(1);
+            } finally {
+                BackendRegistries.stop(MicrometerMetricsOptions.DEFAULT_REGISTRY_NAME);
+            }
+        }
+
+        @Test
+        void should_replace_function_meters_left_by_previous_policy_instance() {
+            var spec = JoltSpecification.of(VALID_JOLT);
+            FunctionCounter.builder("gravitee.policy.json2json.spec.cache", new Object(), stale -> 42)
+                .tags("spec", spec.hash(), "result", "hit")
+                .register(registry);
+
+            policy = new JsonToJsonTransformationPolicy(config(VALID_JOLT, false), registry);
+
+            assertThat(registry.get("gravitee.policy.json2json.spec.cache").tag("result", "hit").functionCounter().count()).isZero();
+        }
+
+        @Test
+        void should_record_phases_and_payload_sizes() {
+            var ctx = new ExecutionContextBuilder().request(aRequest().jsonBody(INPUT_CONTENT).build()).build();
+            policy = new JsonToJsonTransformationPolicy(config(VALID_JOLT, false), registry);
+            policy.onRequest(ctx).test().assertComplete();
+            ctx.request().body().test().assertComplete();
+
+            for (String phase : List.of("parse", "transform", "serialize")) {
+                var timer = registry.get("gravitee.policy.json2json.phase").tags("scope", "request", "phase", phase).timer();
+                assertThat(timer.count()).isEqualTo(1);
+            }
+            assertThat(registry.get("gravitee.policy.json2json.phase").tag("phase", "evaluation").timer().count()).isZero();
+            var payloadSize = registry.get("gravitee.policy.json2json.payload.size");
+            assertThat(payloadSize.tag("direction", "input").summary().totalAmount()).isEqualTo(INPUT_CONTENT.length());
+            assertThat(registry.get("gravitee.policy.json2json.payload.size").tag("direction", "output").summary().totalAmount()).isEqualTo(
+                EXPECTED_CONTENT.toString().length()
+            );
+            assertThat(registry.get("gravitee.policy.json2json.compile").functionTimer().count()).isEqualTo(1);
+        }
+
+        @Test
+        void should_count_failures() {
+            var ctx = new ExecutionContextBuilder().request(aRequest().jsonBody(INPUT_CONTENT).build()).build();
+            ctx.metrics(Mockito.mock(Metrics.class));
+            new JsonToJsonTransformationPolicy(config(INVALID_JOLT, false), registry).onRequest(ctx).test().assertError(
+                InterruptionFailureException.class
+            );
+
+            var failures = registry.get("gravitee.policy.json2json.failures").tag("key", "JSON_INVALID_SPECIFICATION").counter();
+            assertThat(failures.count()).isEqualTo(1);
+        }
+
+        @Test
+        void should_count_skipped_non_json_payloads() {
+            var ctx = new ExecutionContextBuilder().request(aRequest().body("plain text").contentType(MediaType.TEXT_PLAIN).build()).build();
+            ctx.metrics(Mockito.mock(Metrics.class));
+            new JsonToJsonTransformationPolicy(config(VALID_JOLT, false), registry).onRequest(ctx).test().assertComplete();
+            ctx.request().body().test().assertComplete();
+
+            assertThat(registry.get("gravitee.policy.json2json.skipped").tag("scope", "request").counter().count()).isEqualTo(1);
+        }
+
+        @Test
+        void should_remove_api_meters_once_last_policy_instance_using_them_is_released() {
+            var first = new JsonToJsonTransformationPolicy(config(VALID_JOLT, false), registry);
+            var second = new JsonToJsonTransformationPolicy(config(VALID_JOLT, false), registry);
+            first.metrics().of("api", TransformationMetrics.Scope.REQUEST).skipped.increment();
+            second.metrics().of("api", TransformationMetrics.Scope.REQUEST).skipped.increment();
+
+            first.metrics().release();
+            assertThat(registry.get("gravitee.policy.json2json.skipped").tag("api", "api").counter().count()).isEqualTo(2);
+
+            second.metrics().release();
+            assertThat(registry.find("gravitee.policy.json2json.skipped").tag("api", "api").counters()).isEmpty();
+            assertThat(registry.find("gravitee.policy.json2json.phase").tag("api", "api").timers()).isEmpty();
+        }
+
+        @Test
+        void should_sum_worker_gauges_of_all_policy_instances_of_an_api() throws Exception {
+            var configuration = JsonToJsonTransformationPolicyConfiguration.builder()
+                .executionMode(ExecutionMode.WORKER_POOL)
+                .workerThresholdBytes(0)
+                .workerPoolSize(1)
+                .workerQueueSize(1)
+                .build();
+            var specification = JoltSpecification.of(VALID_JOLT);
+            var executors = List.of(TransformationExecutor.of(configuration), TransformationExecutor.of(configuration));
+            var instances = executors.stream().map(executor -> new TransformationMetrics(registry, specification, executor)).toList();
+            instances.forEach(instance -> instance.of("api", TransformationMetrics.Scope.REQUEST));
+            var release = new CountDownLatch(1);
+            var blocked = executors
+                .stream()
+                .map(executor -> executor.execute(Buffer.buffer("{}"), () -> release.await(5, TimeUnit.SECONDS)).test())
+                .toList();
+            try {
+                assertThat(registry.find("gravitee.policy.json2json.worker.active").tag("api", "api").gauges()).hasSize(1);
+                assertThat(registry.get("gravitee.policy.json2json.worker.active").tag("api", "api").gauge().value()).isEqualTo(2);
+
+                instances.get(0).release();
+                assertThat(registry.get("gravitee.policy.json2json.worker.active").tag("api", "api").gauge().value()).isEqualTo(1);
+            } finally {
+                release.countDown();
+            }
+            blocked.forEach(observer -> observer.awaitDone(5, TimeUnit.SECONDS).assertValue(true));
+
+            instances.get(1).release();
+            assertThat(registry.find("gravitee.policy.json2json.worker.active").tag("api", "api").gauges()).isEmpty();
+        }
+    }
+
+    @Nested
+    class unchangedPayload {
+
+        private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+        @Test
+        void should_pass_through_payloads_left_unchanged_by_specification() {
+            var body = "{ \"id\": 1,\n  \"name\": \"gravitee\" }";
+            var ctx = new ExecutionContextBuilder().request(aRequest().body(body).contentType(MediaType.APPLICATION_JSON).build()).build();
+            ctx.metrics(Mockito.mock(Metrics.class));
+            var spec = "[{\"operation\": \"remove\", \"spec\": {\"secret\": \"\"}}]";
+            new JsonToJsonTransformationPolicy(config(spec, true), registry).onRequest(ctx).test().assertComplete();
+
+            ctx.request().body().test().assertValue(buffer -> buffer.toString().equals(body));
+            assertThat(registry.get("gravitee.policy.json2json.unchanged").tag("scope", "request").counter().count()).isEqualTo(1);
+        }
+
+        @Test
+        void should_override_content_type_of_payloads_left_unchanged_by_specification() {
+            var body = "{\"id\":1}";
+            var ctx = new ExecutionContextBuilder()
+                .request(aRequest().body(body).contentType("application/vnd.gravitee+json").build())
+                .build();
+            ctx.metrics(Mockito.mock(Metrics.class));
+            var spec = "[{\"operation\": \"remove\", \"spec\": {\"secret\": \"\"}}]";
+            new JsonToJsonTransformationPolicy(config(spec, true), registry).onRequest(ctx).test().assertComplete();
+
+            ctx.request().body().test().assertValue(buffer -> buffer.toString().equals(body));
+            assertThat(ctx.request().headers().get(HttpHeaderNames.CONTENT_TYPE)).isEqualTo(MediaType.APPLICATION_JSON);
+        }
+    }
+
+    @Nested
+    class workerPool {
+
+        private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+        @Test
+        void should_transform_body_off_the_calling_thread() {
+            var ctx = new ExecutionContextBuilder()
+                .request(aRequest().body("{\"items\": [1, 2], \"id\": 3}").contentType(MediaType.APPLICATION_JSON).build())
+                .build();
+            ctx.metrics(Mockito.mock(Metrics.class));
+            var config = config("[{\"operation\": \"shift\", \"spec\": {\"items\": \"data.list\"}}]", true);
+            config.setExecutionMode(ExecutionMode.WORKER_POOL);
+            config.setWorkerThresholdBytes(0);
+            var transformedOn = new AtomicReference<Thread>();
+            var policy = new JsonToJsonTransformationPolicy(config, registry);
+
+            policy
+                .onRequest(ctx)
+                .andThen(ctx.request().body().doOnSuccess(body -> transformedOn.set(Thread.currentThread())).ignoreElement())
+                .test()
+                .awaitDone(5, TimeUnit.SECONDS)
+                .assertComplete();
+
+            ctx.request().body().test().assertValue(buffer -> buffer.toString().equals("{\"data\":{\"list\":[1,2]}}"));
+            assertThat(transformedOn.get()).isNotSameAs(Thread.currentThread());
+            assertThat(transformedOn.get().getName()).startsWith("json2json-worker-");
+            assertThat(registry.get("gravitee.policy.json2json.worker.queue").tag("api", "unknown").gauge().value()).isZero();
+        }
+
+        @Test
+        void should_emit_messages_transformed_concurrently_on_vertx_context_of_caller() {
+            var inputs = IntStream.range(0, 10)
+                .mapToObj(i -> aMessage().content("{\"id\": " + i + ", \"padding\": \"" + "x".repeat(100) + "\"}").build())
+                .toArray(Message[]::new);
+            var ctx = new ExecutionContextBuilder().request(aRequest().messages(inputs).build()).build();
+            var configuration = JsonToJsonTransformationPolicyConfiguration.builder()
+                .specification("[{\"operation\": \"shift\", \"spec\": {\"id\": \"ref\"}}]")
+                .messageConcurrency(4)
+                .workerThresholdBytes(0)
+                .build();
+            var policy = new JsonToJsonTransformationPolicy(configuration, registry);
+            var vertx = Vertx.vertx();
+            try {
+                var context = vertx.getOrCreateContext();
+                var emittedOnContext = new CompletableFuture<List<Boolean>>();
+                context.runOnContext(ignored ->
+                    policy
+                        .onMessageRequest(ctx)
+                        .andThen(ctx.request().messages())
+                        .map(message -> Vertx.currentContext() == context)
+                        .toList()
+                        .subscribe(emittedOnContext::complete, emittedOnContext::completeExceptionally)
+                );
+
+                assertThat(emittedOnContext).succeedsWithin(5, TimeUnit.SECONDS).asList().hasSize(10).containsOnly(true);
+            } finally {
+                vertx.close();
+            }
+            assertThat(registry.get("gravitee.policy.json2json.worker.active").tag("api", "unknown").gauge()).isNotNull();
+        }
+    }
+
+    @Nested
+    class zeroCopy {
+
+        private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+        @Test
+        void should_splice_values_moved_by_specification_when_zero_copy() {
+            var ctx = new ExecutionContextBuilder()
+                .request(aRequest().body("{\"items\": [1, 2], \"id\": 3}").contentType(MediaType.APPLICATION_JSON).build())
+                .build();
+            ctx.metrics(Mockito.mock(Metrics.class));
+            var config = config("[{\"operation\": \"shift\", \"spec\": {\"items\": \"data.list\"}}]", true);
+            config.setZeroCopy(true);
+            new JsonToJsonTransformationPolicy(config, registry).onRequest(ctx).test().assertComplete();
+
+            ctx.request().body().test().assertValue(buffer -> buffer.toString().equals("{\"data\":{\"list\":[1, 2]}}"));
+            assertThat(ctx.request().headers().get(HttpHeaderNames.CONTENT_LENGTH)).isEqualTo("24");
+        }
+    }
+
+    @Nested
+    class resultCache {
+
+        private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        // Function meters read objects kept reachable by the policy, which must outlive the assertions
+        private JsonToJsonTransformationPolicy policy;
+
+        @ParameterizedTest
+        @ValueSource(strings = { "GET", "POST" })
+        void should_only_cache_transformations_of_get_responses(String method) {
+            var config = config(VALID_JOLT, false);
+            config.setResultCache(true);
+            policy = new JsonToJsonTransformationPolicy(config, registry);
+            for (int i = 0; i < 2; i++) {
+                var ctx = new ExecutionContextBuilder()
+                    .request(aRequest().method(HttpMethod.valueOf(method)).build())
+                    .response(aResponse().jsonBody(INPUT_CONTENT).build())
+                    .build();
+                ctx.metrics(Mockito.mock(Metrics.class));
+                policy.onResponse(ctx).test().assertComplete();
+
+                ctx.response().body().test().assertValue(buffer -> new JsonObject(buffer.toString()).equals(EXPECTED_CONTENT));
+                assertThat(ctx.response().headers().get(HttpHeaderNames.CONTENT_LENGTH)).isEqualTo(
+                    Integer.toString(EXPECTED_CONTENT.toString().length())
+                );
+            }
+
+            var hits = registry.get("gravitee.policy.json2json.result.cache").tag("result", "hit").functionCounter().count();
+            var misses = registry.get("gravitee.policy.json2json.result.cache").tag("result", "miss").functionCounter().count();
+            var lookups = "GET".equals(method) ? 1.0 : 0.0;
+            assertThat(hits).isEqualTo(lookups);
+            assertThat(misses).isEqualTo(lookups);
+        }
+    }
+
     private JsonToJsonTransformationPolicyConfiguration config(String spec, boolean override) {
         JsonToJsonTransformationPolicyConfiguration config = new JsonToJsonTransformationPolicyConfiguration();
         config.setSpecification(spec);
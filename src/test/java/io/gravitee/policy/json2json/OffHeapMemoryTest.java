@@ -0,0 +1,59 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.policy.json2json;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.ByteBuffer;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class OffHeapMemoryTest {
+
+    private final OffHeapMemory offHeap = new OffHeapMemory(100);
+
+    @Test
+    void should_store_bytes_in_direct_memory_within_budget() {
+        var stored = offHeap.store(ByteBuffer.wrap(new byte[] { 1, 2, 3 }));
+
+        assertThat(stored.isDirect()).isTrue();
+        assertThat(stored.readableBytes()).isEqualTo(3);
+        assertThat(stored.getByte(2)).isEqualTo((byte) 3);
+        assertThat(offHeap.reservedBytes()).isEqualTo(3);
+        assertThat(offHeap.store(ByteBuffer.wrap(new byte[98]))).isNull();
+        offHeap.release(stored);
+    }
+
+    @Test
+    void should_free_memory_once_last_reference_is_released() {
+        var stored = offHeap.store(ByteBuffer.wrap(new byte[60]));
+        stored.retain();
+
+        offHeap.release(stored);
+        assertThat(stored.refCnt()).isEqualTo(1);
+        assertThat(offHeap.reservedBytes()).isEqualTo(60);
+
+        offHeap.release(stored);
+        assertThat(stored.refCnt()).isZero();
+        assertThat(offHeap.reservedBytes()).isZero();
+
+        var reused = offHeap.store(ByteBuffer.wrap(new byte[100]));
+        assertThat(reused).isNotNull();
+        offHeap.release(reused);
+    }
+}
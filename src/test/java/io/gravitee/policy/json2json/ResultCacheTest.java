@@ -0,0 +1,177 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.policy.json2json;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.gravitee.gateway.api.buffer.Buffer;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class ResultCacheTest {
+
+    private final AtomicLong ticker = new AtomicLong();
+
+    @Test
+    void should_key_payloads_by_content() {
+        var heap = ResultCache.key(Buffer.buffer("{\"a\":1}"));
+        var direct = ResultCache.key(Buffer.buffer(Unpooled.directBuffer().writeBytes("{\"a\":1}".getBytes())));
+
+        assertThat(direct).isEqualTo(heap).hasSameHashCodeAs(heap);
+        assertThat(ResultCache.key(Buffer.buffer("{\"a\":2}"))).isNotEqualTo(heap);
+    }
+
+    @Test
+    void should_return_cached_transformation() {
+        var cache = new ResultCache(1024, Duration.ofMinutes(1), null, ticker::get);
+        var key = ResultCache.key(Buffer.buffer("{\"a\":1}"));
+
+        assertThat(cache.get(key)).isNull();
+        cache.put(key, Buffer.buffer("{\"b\":1}"));
+
+        assertThat(cache.get(key)).hasToString("{\"b\":1}");
+        assertThat(cache.get(ResultCache.key(Buffer.buffer("{\"a\":1}")))).hasToString("{\"b\":1}");
+        assertThat(cache.hitCount()).isEqualTo(2);
+        assertThat(cache.missCount()).isEqualTo(1);
+    }
+
+    @Test
+    void should_not_share_cached_bytes_with_returned_buffers() {
+        var cache = new ResultCache(1024, Duration.ofMinutes(1), null, ticker::get);
+        var key = ResultCache.key(Buffer.buffer("{\"a\":1}"));
+        var transformation = Buffer.buffer("{\"b\":1}");
+        cache.put(key, transformation);
+
+        transformation.appendString("garbage");
+        cache.get(key).appendString("garbage");
+
+        assertThat(cache.get(key)).hasToString("{\"b\":1}");
+    }
+
+    @Test
+    void should_expire_transformation_after_ttl_even_when_accessed() {
+        var cache = new ResultCache(1024, Duration.ofNanos(10), null, ticker::get);
+        var key = ResultCache.key(Buffer.buffer("{\"a\":1}"));
+        cache.put(key, Buffer.buffer("{\"b\":1}"));
+
+        ticker.addAndGet(6);
+        assertThat(cache.get(key)).isNotNull();
+        ticker.addAndGet(6);
+
+        assertThat(cache.get(key)).isNull();
+        assertThat(cache.evictionCount()).isEqualTo(1);
+        assertThat(cache.sizeInBytes()).isZero();
+    }
+
+    @Test
+    void should_evict_least_recently_accessed_transformations_when_full() {
+        var payload = Buffer.buffer(new byte[300]);
+        var cache = new ResultCache(1000, Duration.ofMinutes(1), null, ticker::get);
+        var a = ResultCache.key(Buffer.buffer("a"));
+        var b = ResultCache.key(Buffer.buffer("b"));
+        var c = ResultCache.key(Buffer.buffer("c"));
+
+        cache.put(a, payload);
+        ticker.incrementAndGet();
+        cache.put(b, payload);
+        ticker.incrementAndGet();
+        cache.get(a);
+        ticker.incrementAndGet();
+        cache.put(c, payload);
+
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.evictionCount()).isEqualTo(1);
+        assertThat(cache.get(b)).isNull();
+        assertThat(cache.get(a)).isNotNull();
+        assertThat(cache.sizeInBytes()).isLessThanOrEqualTo(900);
+    }
+
+    @Test
+    void should_evict_as_many_transformations_as_needed_for_a_larger_one() {
+        var cache = new ResultCache(1000, Duration.ofMinutes(1), null, ticker::get);
+        for (int i = 0; i < 5; i++) {
+            cache.put(ResultCache.key(Buffer.buffer("small-" + i)), Buffer.buffer(new byte[50]));
+        }
+        var large = ResultCache.key(Buffer.buffer("large"));
+
+        cache.put(large, Buffer.buffer(new byte[600]));
+
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.evictionCount()).isEqualTo(4);
+        assertThat(cache.get(large)).isNotNull();
+        assertThat(cache.sizeInBytes()).isEqualTo(50 + 600 + 2 * 128);
+    }
+
+    @Test
+    void should_not_cache_transformation_larger_than_cache() {
+        var cache = new ResultCache(1000, Duration.ofMinutes(1), null, ticker::get);
+        var key = ResultCache.key(Buffer.buffer("a"));
+        cache.put(key, Buffer.buffer(new byte[1000]));
+
+        assertThat(cache.size()).isZero();
+        assertThat(cache.get(key)).isNull();
+    }
+
+    @Test
+    void should_store_transformations_off_heap() {
+        var offHeap = new OffHeapMemory(1000);
+        var cache = new ResultCache(1000, Duration.ofMinutes(1), offHeap, ticker::get);
+        var key = ResultCache.key(Buffer.buffer("{\"a\":1}"));
+        cache.put(key, Buffer.buffer("{\"b\":1}"));
+
+        var cached = cache.get(key);
+        assertThat(cached).hasToString("{\"b\":1}");
+        // Hits are copied to the heap, the direct memory only holds the cached transformation
+        assertThat(((ByteBuf) cached.getNativeBuffer()).isDirect()).isFalse();
+        assertThat(offHeap.reservedBytes()).isEqualTo(7);
+    }
+
+    @Test
+    void should_release_off_heap_memory_of_evicted_transformations() {
+        var offHeap = new OffHeapMemory(1000);
+        var cache = new ResultCache(1000, Duration.ofNanos(10), offHeap, ticker::get);
+        var key = ResultCache.key(Buffer.buffer("{\"a\":1}"));
+        cache.put(key, Buffer.buffer("{\"b\":1}"));
+        var cached = cache.get(key);
+
+        ticker.addAndGet(11);
+
+        assertThat(cache.get(key)).isNull();
+        assertThat(offHeap.reservedBytes()).isZero();
+        assertThat(cached).hasToString("{\"b\":1}");
+    }
+
+    @Test
+    void should_not_cache_transformation_exceeding_off_heap_budget() {
+        var offHeap = new OffHeapMemory(500);
+        var first = new ResultCache(1000, Duration.ofMinutes(1), offHeap, ticker::get);
+        var second = new ResultCache(1000, Duration.ofMinutes(1), offHeap, ticker::get);
+        first.put(ResultCache.key(Buffer.buffer("a")), Buffer.buffer(new byte[300]));
+
+        var key = ResultCache.key(Buffer.buffer("b"));
+        second.put(key, Buffer.buffer(new byte[300]));
+
+        assertThat(second.get(key)).isNull();
+        assertThat(second.rejectionCount()).isEqualTo(1);
+        assertThat(offHeap.reservedBytes()).isEqualTo(300);
+    }
+}
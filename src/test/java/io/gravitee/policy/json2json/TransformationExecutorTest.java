@@ -0,0 +1,210 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.policy.json2json;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.gravitee.gateway.api.buffer.Buffer;
+import io.gravitee.policy.json2json.configuration.ExecutionMode;
+import io.gravitee.policy.json2json.configuration.JsonToJsonTransformationPolicyConfiguration;
+import io.reactivex.rxjava3.observers.TestObserver;
+import io.vertx.core.Vertx;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class TransformationExecutorTest {
+
+    private static final Buffer SMALL = Buffer.buffer("{}");
+    private static final Buffer LARGE = Buffer.buffer("{\"padding\": \"" + "x".repeat(100) + "\"}");
+
+    @Test
+    void should_transform_inline_by_default() {
+        var executor = TransformationExecutor.of(new JsonToJsonTransformationPolicyConfiguration());
+
+        executor.execute(LARGE, () -> Thread.currentThread().getName()).test().assertValue(Thread.currentThread().getName());
+    }
+
+    @Test
+    void should_only_transform_large_payloads_on_worker_threads() {
+        var executor = TransformationExecutor.of(workerPool(1, 1));
+
+        executor.execute(SMALL, () -> Thread.currentThread().getName()).test().assertValue(Thread.currentThread().getName());
+        executor
+            .execute(LARGE, () -> Thread.currentThread().getName())
+            .test()
+            .awaitDone(5, TimeUnit.SECONDS)
+            .assertValue(name -> name.startsWith("json2json-worker-"));
+    }
+
+    @Test
+    void should_report_transformation_errors_of_worker_threads() {
+        var executor = TransformationExecutor.of(workerPool(1, 1));
+
+        executor
+            .execute(LARGE, () -> {
+                throw new IOException("invalid");
+            })
+            .test()
+            .awaitDone(5, TimeUnit.SECONDS)
+            .assertError(IOException.class);
+    }
+
+    @Test
+    void should_reject_transformations_when_queue_is_full() throws Exception {
+        var executor = TransformationExecutor.of(workerPool(1, 1));
+        var started = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+
+        var blocking = executor
+            .execute(LARGE, () -> {
+                started.countDown();
+                return release.await(5, TimeUnit.SECONDS);
+            })
+            .test();
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        var queued = executor.execute(LARGE, () -> true).test();
+        assertThat(executor.waiting()).isEqualTo(1);
+
+        executor.execute(LARGE, () -> true).test().assertError(RejectedExecutionException.class);
+
+        release.countDown();
+        blocking.awaitDone(5, TimeUnit.SECONDS).assertValue(true);
+        queued.awaitDone(5, TimeUnit.SECONDS).assertValue(true);
+        await(() -> executor.running() == 0);
+    }
+
+    @Test
+    void should_reject_transformations_once_pool_size_is_reached_without_queue() throws Exception {
+        var executor = TransformationExecutor.of(workerPool(1, 0));
+        var release = new CountDownLatch(1);
+
+        var blocking = executor.execute(LARGE, () -> release.await(5, TimeUnit.SECONDS)).test();
+
+        executor.execute(LARGE, () -> true).test().assertError(RejectedExecutionException.class);
+        release.countDown();
+        blocking.awaitDone(5, TimeUnit.SECONDS).assertValue(true);
+    }
+
+    @Test
+    void should_limit_transformations_running_on_virtual_threads() throws Exception {
+        var configuration = workerPool(1, 1);
+        configuration.setExecutionMode(ExecutionMode.VIRTUAL_THREAD);
+        var executor = TransformationExecutor.of(configuration);
+        var started = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+
+        var blocking = executor
+            .execute(LARGE, () -> {
+                started.countDown();
+                return release.await(5, TimeUnit.SECONDS);
+            })
+            .test();
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        var waiting = executor.execute(LARGE, () -> Thread.currentThread().isVirtual()).test();
+        assertThat(executor.waiting()).isEqualTo(1);
+        assertThat(executor.running()).isEqualTo(1);
+
+        release.countDown();
+        blocking.awaitDone(5, TimeUnit.SECONDS).assertValue(true);
+        waiting.awaitDone(5, TimeUnit.SECONDS).assertValue(true);
+    }
+
+    @Test
+    void should_limit_transformations_running_on_virtual_threads_for_every_executor() throws Exception {
+        var limit = TransformationExecutor.WORKER_THREADS;
+        var configuration = workerPool(limit, limit);
+        configuration.setExecutionMode(ExecutionMode.VIRTUAL_THREAD);
+        var executors = List.of(TransformationExecutor.of(configuration), TransformationExecutor.of(configuration));
+        var executing = new AtomicInteger();
+        var maxExecuting = new AtomicInteger();
+        var release = new CountDownLatch(1);
+
+        var transformations = new ArrayList<TestObserver<Boolean>>();
+        for (var executor : executors) {
+            for (int i = 0; i < limit; i++) {
+                transformations.add(
+                    executor
+                        .execute(LARGE, () -> {
+                            maxExecuting.accumulateAndGet(executing.incrementAndGet(), Math::max);
+                            try {
+                                return release.await(5, TimeUnit.SECONDS);
+                            } finally {
+                                executing.decrementAndGet();
+                            }
+                        })
+                        .test()
+                );
+            }
+        }
+        await(() -> executing.get() == limit);
+        // Leave the virtual threads beyond the limit a chance to start
+        Thread.sleep(100);
+        assertThat(executors).allSatisfy(executor -> assertThat(executor.running()).isEqualTo(limit));
+
+        release.countDown();
+        transformations.forEach(transformation -> transformation.awaitDone(5, TimeUnit.SECONDS).assertValue(true));
+        assertThat(maxExecuting.get()).isEqualTo(limit);
+    }
+
+    @Test
+    void should_emit_result_on_vertx_context_of_caller() {
+        var configuration = workerPool(1, 1);
+        configuration.setExecutionMode(ExecutionMode.VIRTUAL_THREAD);
+        var executor = TransformationExecutor.of(configuration);
+        var vertx = Vertx.vertx();
+        try {
+            var context = vertx.getOrCreateContext();
+            var emittedOnContext = new CompletableFuture<Boolean>();
+            context.runOnContext(ignored ->
+                executor
+                    .execute(LARGE, () -> Vertx.currentContext() == null)
+                    .subscribe(onWorker -> emittedOnContext.complete(onWorker && Vertx.currentContext() == context))
+            );
+
+            assertThat(emittedOnContext).succeedsWithin(5, TimeUnit.SECONDS).isEqualTo(true);
+        } finally {
+            vertx.close();
+        }
+    }
+
+    private static void await(final BooleanSupplier condition) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(condition.getAsBoolean()).isTrue();
+    }
+
+    private static JsonToJsonTransformationPolicyConfiguration workerPool(final int poolSize, final int queueSize) {
+        return JsonToJsonTransformationPolicyConfiguration.builder()
+            .executionMode(ExecutionMode.WORKER_POOL)
+            .workerThresholdBytes(64)
+            .workerPoolSize(poolSize)
+            .workerQueueSize(queueSize)
+            .build();
+    }
+}
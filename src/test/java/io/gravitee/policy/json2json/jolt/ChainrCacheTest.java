@@ -0,0 +1,91 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.policy.json2json.jolt;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.bazaarvoice.jolt.Chainr;
+import com.bazaarvoice.jolt.JsonUtils;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class ChainrCacheTest {
+
+    private static final String SPEC_A = "[{\"operation\": \"shift\", \"spec\": {\"a\": \"b\"}}]";
+    private static final String SPEC_B = "[{\"operation\": \"shift\", \"spec\": {\"b\": \"c\"}}]";
+    private static final String SPEC_C = "[{\"operation\": \"shift\", \"spec\": {\"c\": \"d\"}}]";
+
+    private static final Function<String, Chainr> COMPILER = specification -> Chainr.fromSpec(JsonUtils.jsonToList(specification));
+
+    private final AtomicLong ticker = new AtomicLong();
+
+    @Test
+    void should_compile_once_and_reuse_chainr() {
+        var cache = new ChainrCache(10, Duration.ofMinutes(1), ticker::get);
+
+        Chainr first = cache.get(SPEC_A, COMPILER);
+        Chainr second = cache.get(SPEC_A, COMPILER);
+
+        assertThat(second).isSameAs(first);
+        assertThat(cache.missCount()).isEqualTo(1);
+        assertThat(cache.hitCount()).isEqualTo(1);
+        assertThat(cache.size()).isEqualTo(1);
+    }
+
+    @Test
+    void should_evict_least_recently_accessed_entry_when_full() {
+        var cache = new ChainrCache(2, Duration.ofMinutes(1), ticker::get);
+
+        Chainr a = cache.get(SPEC_A, COMPILER);
+        ticker.incrementAndGet();
+        cache.get(SPEC_B, COMPILER);
+        ticker.incrementAndGet();
+        cache.get(SPEC_A, COMPILER);
+        ticker.incrementAndGet();
+        cache.get(SPEC_C, COMPILER);
+
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.evictionCount()).isEqualTo(1);
+        assertThat(cache.get(SPEC_A, COMPILER)).isSameAs(a);
+    }
+
+    @Test
+    void should_recompile_entry_idle_for_too_long() {
+        var cache = new ChainrCache(10, Duration.ofNanos(10), ticker::get);
+
+        Chainr first = cache.get(SPEC_A, COMPILER);
+        ticker.addAndGet(11);
+        Chainr second = cache.get(SPEC_A, COMPILER);
+
+        assertThat(second).isNotSameAs(first);
+        assertThat(cache.missCount()).isEqualTo(2);
+        assertThat(cache.evictionCount()).isEqualTo(1);
+    }
+
+    @Test
+    void should_not_cache_invalid_specification() {
+        var cache = new ChainrCache(10, Duration.ofMinutes(1), ticker::get);
+
+        assertThatThrownBy(() -> cache.get("[invalid, json, file]", COMPILER)).isInstanceOf(RuntimeException.class);
+        assertThat(cache.size()).isZero();
+    }
+}
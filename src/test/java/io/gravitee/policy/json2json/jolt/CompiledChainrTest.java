@@ -0,0 +1,139 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.policy.json2json.jolt;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.params.provider.Arguments.arguments;
+
+import com.bazaarvoice.jolt.Chainr;
+import com.bazaarvoice.jolt.Defaultr;
+import com.bazaarvoice.jolt.JsonUtils;
+import com.bazaarvoice.jolt.Shiftr;
+import com.bazaarvoice.jolt.exception.SpecException;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class CompiledChainrTest {
+
+    private static final String INPUT =
+        "{'id': 1, 'user': {'name': 'John', 'address': {'city': 'Lille', 'zip': null}, 'tags': ['a', 'b', 'c']}, 'internal': {'secret': 's'}}";
+
+    static Stream<Arguments> specifications() {
+        return Stream.of(
+            // shift
+            arguments(
+                "[{'operation': 'shift', 'spec': {'id': 'ref', 'user': {'name': 'customer.fullName', 'address': {'city': 'customer.city', 'zip': 'customer.zip'}}}}]",
+                INPUT
+            ),
+            arguments("[{'operation': 'shift', 'spec': {'id': ['ref', 'copy.id'], 'missing': 'nowhere', 'user': {'tags': 'labels', 'name': null}}}]", INPUT),
+            arguments("[{'operation': 'shift', 'spec': {'missing': 'a'}}]", INPUT),
+            arguments("[{'operation': 'shift', 'spec': {'user': {'name': 'name'}}}]", "{'user': 'John'}"),
+            arguments("[{'operation': 'shift', 'spec': {'user': {'name': 'name'}}}]", "{'user': [{'name': 'John'}]}"),
+            arguments("[{'operation': 'shift', 'spec': {'0': 'first'}}]", "['a', 'b']"),
+            // default
+            arguments(
+                "[{'operation': 'default', 'spec': {'id': 2, 'tenant': 'acme', 'user': {'address': {'zip': '59000', 'country': 'FR'}, 'roles': ['user']}, 'meta': {'v': 1}}}]",
+                INPUT
+            ),
+            arguments("[{'operation': 'default', 'spec': {'user': {'name': 'Jane'}}}]", "{'user': 'John'}"),
+            arguments("[{'operation': 'default', 'spec': {'tenant': 'acme'}}]", "null"),
+            arguments("[{'operation': 'default', 'spec': {'tenant': 'acme'}}]", "'scalar'"),
+            // remove
+            arguments("[{'operation': 'remove', 'spec': {'internal': '', 'user': {'address': {'zip': ''}, 'tags': {'1': '', '5': ''}}}}]", INPUT),
+            arguments("[{'operation': 'remove', 'spec': {'user|internal': {'*': ''}}}]", INPUT),
+            arguments("[{'operation': 'remove', 'spec': {'*': {'name': '', 'tags': {'*': ''}}}}]", INPUT),
+            arguments("[{'operation': 'remove', 'spec': {'0': '', '2': {'id': ''}}}]", "[1, 2, {'id': 3, 'name': 'x'}]"),
+            // chain mixing compiled and JOLT operations
+            arguments(
+                "[{'operation': 'shift', 'spec': {'user': {'*': 'profile.&'}}}, {'operation': 'remove', 'spec': {'profile': {'tags': ''}}}, {'operation': 'default', 'spec': {'profile': {'country': 'FR'}}}]",
+                INPUT
+            )
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("specifications")
+    void should_transform_like_jolt(final String specification, final String input) {
+        final Object spec = JsonUtils.jsonToList(json(specification));
+
+        final Object expected = Chainr.fromSpec(spec).transform(JsonUtils.jsonToObject(json(input)));
+        final Object actual = CompiledChainr.compile(spec).transform(JsonUtils.jsonToObject(json(input)));
+
+        assertThat(actual).isEqualTo(expected);
+    }
+
+    @Test
+    void should_compile_literal_operations() {
+        assertThat(CompiledShiftr.of(JsonUtils.jsonToMap("{ \"a\": { \"b\": \"c.d\" } }"))).isInstanceOf(CompiledShiftr.class);
+        assertThat(CompiledDefaultr.of(JsonUtils.jsonToMap("{ \"a\": { \"b\": 1 } }"))).isInstanceOf(CompiledDefaultr.class);
+        assertThat(CompiledRemovr.of(JsonUtils.jsonToMap("{ \"a\": { \"*\": \"\" } }"))).isInstanceOf(CompiledRemovr.class);
+    }
+
+    @Test
+    void should_leave_unsupported_operations_to_jolt() {
+        assertThat(CompiledShiftr.of(JsonUtils.jsonToMap("{ \"*\": \"&\" }"))).isInstanceOf(Shiftr.class);
+        assertThat(CompiledShiftr.of(JsonUtils.jsonToMap("{ \"a\": \"c\", \"b\": \"c\" }"))).isInstanceOf(Shiftr.class);
+        assertThat(CompiledShiftr.of(JsonUtils.jsonToMap("{ \"a\": \"c\", \"b\": \"c.d\" }"))).isInstanceOf(Shiftr.class);
+        assertThat(CompiledDefaultr.of(JsonUtils.jsonToMap("{ \"items[]\": { \"0\": 1 } }"))).isInstanceOf(Defaultr.class);
+        assertThat(CompiledDefaultr.of(JsonUtils.jsonToMap("{ \"c\": 2, \"a\": { \"b\": 1 } }"))).isInstanceOf(Defaultr.class);
+        assertThat(CompiledDefaultr.of(JsonUtils.jsonToMap("{ \"a\": { \"b\": 1, \"c\": 2 } }"))).isInstanceOf(Defaultr.class);
+    }
+
+    /**
+     * Default operations with a single key per level, for which the keys added by JOLT come out in a deterministic order.
+     */
+    static Stream<Arguments> singleKeyDefaults() {
+        return Stream.of(
+            arguments("[{'operation': 'default', 'spec': {'user': {'address': {'country': 'FR'}}}}]", INPUT),
+            arguments("[{'operation': 'default', 'spec': {'meta': {'source': {'v': 1}}}}]", INPUT),
+            arguments("[{'operation': 'default', 'spec': {'user': {'name': 'Jane'}}}]", "{'user': 'John'}"),
+            arguments("[{'operation': 'default', 'spec': {'tenant': 'acme'}}]", "null"),
+            arguments(
+                "[{'operation': 'default', 'spec': {'tenant': 'acme'}}, {'operation': 'default', 'spec': {'meta': {'v': 1}}}]",
+                "{'id': 1}"
+            )
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("singleKeyDefaults")
+    void should_write_the_same_json_as_jolt(final String specification, final String input) {
+        final Object spec = JsonUtils.jsonToList(json(specification));
+
+        final String expected = JsonUtils.toJsonString(Chainr.fromSpec(spec).transform(JsonUtils.jsonToObject(json(input))));
+        final String actual = JsonUtils.toJsonString(CompiledChainr.compile(spec).transform(JsonUtils.jsonToObject(json(input))));
+
+        assertThat(actual).isEqualTo(expected);
+    }
+
+    @Test
+    void should_reject_invalid_specification_like_jolt() {
+        final Object spec = JsonUtils.jsonToList("[{\"operation\": \"remove\", \"spec\": {\"a\": \"not blank\"}}]");
+
+        assertThatThrownBy(() -> CompiledChainr.compile(spec)).isInstanceOf(SpecException.class);
+    }
+
+    private static String json(final String value) {
+        return value.replace('\'', '"');
+    }
+}
@@ -0,0 +1,209 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.policy.json2json.jolt;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.bazaarvoice.jolt.Chainr;
+import com.bazaarvoice.jolt.JsonUtils;
+import io.gravitee.el.TemplateEngine;
+import io.gravitee.gateway.api.buffer.Buffer;
+import io.gravitee.policy.json2json.configuration.TransformationEngine;
+import io.reactivex.rxjava3.core.Maybe;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class JoltSpecificationTest {
+
+    private static final String STATIC_SPEC = "[{\"operation\": \"default\", \"spec\": {\"tenant\": \"acme\"}}]";
+    private static final String TENANT_EXPRESSION = "{#request.headers['x-tenant'][0]}";
+    private static final String EL_SPEC = "[{\"operation\": \"default\", \"spec\": {\"tenant\": \"" + TENANT_EXPRESSION + "\"}}]";
+
+    private static final Supplier<TemplateEngine> NO_TEMPLATE_ENGINE = () -> {
+        throw new AssertionError("Template engine must not be used for a static specification");
+    };
+
+    @Test
+    void should_compile_static_specification_upfront() {
+        var specification = JoltSpecification.of(STATIC_SPEC);
+
+        assertThat(specification.isStatic()).isTrue();
+        Chainr chainr = specification.resolve(NO_TEMPLATE_ENGINE).blockingGet();
+        assertThat(specification.resolveNow(NO_TEMPLATE_ENGINE)).isSameAs(chainr);
+        assertThat(chainr.transform(JsonUtils.jsonToObject("{}"))).isEqualTo(Map.of("tenant", "acme"));
+    }
+
+    @Test
+    void should_share_specification_configured_with_same_text_and_engine() {
+        var specification = JoltSpecification.of(STATIC_SPEC);
+        var shared = JoltSpecification.sharedCount();
+
+        assertThat(JoltSpecification.of(new String(STATIC_SPEC), TransformationEngine.JOLT)).isSameAs(specification);
+        assertThat(JoltSpecification.of(STATIC_SPEC, TransformationEngine.COMPILED)).isNotSameAs(specification);
+        assertThat(JoltSpecification.sharedCount()).isGreaterThan(shared);
+        assertThat(JoltSpecification.registeredCount()).isGreaterThanOrEqualTo(2);
+    }
+
+    @Test
+    void should_only_evaluate_el_expressions_of_specification() {
+        var templateEngine = mock(TemplateEngine.class);
+        when(templateEngine.eval(TENANT_EXPRESSION, String.class)).thenReturn(Maybe.just("acme"));
+        var specification = JoltSpecification.of(EL_SPEC);
+
+        assertThat(specification.isStatic()).isFalse();
+        Chainr chainr = specification.resolve(() -> templateEngine).blockingGet();
+        assertThat(chainr.transform(JsonUtils.jsonToObject("{}"))).isEqualTo(Map.of("tenant", "acme"));
+        assertThat(specification.resolve(() -> templateEngine).blockingGet()).isSameAs(chainr);
+    }
+
+    @Test
+    void should_only_convert_el_expressions_of_specification_for_v3() {
+        var templateEngine = mock(TemplateEngine.class);
+        when(templateEngine.convert(TENANT_EXPRESSION)).thenReturn("acme");
+        var specification = JoltSpecification.of(EL_SPEC);
+
+        Chainr chainr = specification.resolveNow(() -> templateEngine);
+        assertThat(chainr.transform(JsonUtils.jsonToObject("{}"))).isEqualTo(Map.of("tenant", "acme"));
+    }
+
+    @Test
+    void should_evaluate_whole_specification_when_el_is_not_in_a_json_string() {
+        var elSpec = "[{\"operation\": \"default\", \"spec\": {\"count\": {#request.headers['x-count'][0]}}}]";
+        var templateEngine = mock(TemplateEngine.class);
+        when(templateEngine.eval(elSpec, String.class)).thenReturn(
+            Maybe.just("[{\"operation\": \"default\", \"spec\": {\"count\": 2}}]")
+        );
+        var specification = JoltSpecification.of(elSpec);
+
+        Chainr chainr = specification.resolve(() -> templateEngine).blockingGet();
+        assertThat(chainr.transform(JsonUtils.jsonToObject("{}"))).isEqualTo(Map.of("count", 2));
+    }
+
+    @Test
+    void should_not_compile_invalid_specification_upfront() {
+        assertThat(JoltSpecification.of("[invalid, json, file]").isStatic()).isFalse();
+    }
+
+    @Test
+    void should_fail_each_resolution_of_invalid_specification_with_the_same_error() {
+        var specification = JoltSpecification.of("[invalid, json, file]");
+
+        assertThat(specification.isInvalid()).isTrue();
+        var error = catchThrowable(() -> specification.resolveNow(NO_TEMPLATE_ENGINE));
+        assertThat(error).isInstanceOf(InvalidSpecificationException.class);
+        assertThat(error.getStackTrace()).isEmpty();
+        specification.resolve(NO_TEMPLATE_ENGINE).test().assertError(error);
+        specification.resolve(NO_TEMPLATE_ENGINE).test().assertError(error);
+    }
+
+    @Test
+    void should_validate_operations_without_el_of_el_specification() {
+        var invalidOperation = "[{\"operation\": \"default\", \"spec\": {\"tenant\": \"" + TENANT_EXPRESSION + "\"}}, {\"operation\": \"shift\"}]";
+
+        assertThat(JoltSpecification.of(invalidOperation).isInvalid()).isTrue();
+        assertThat(JoltSpecification.of(EL_SPEC).isInvalid()).isFalse();
+        assertThat(JoltSpecification.of(STATIC_SPEC).isInvalid()).isFalse();
+    }
+
+    @Test
+    void should_fail_warm_up_of_invalid_specification() {
+        var specification = JoltSpecification.of("[{\"operation\": \"shift\", \"spec\": {}}]");
+
+        assertThatThrownBy(() -> specification.warmUp("{}", 1)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void should_warm_up_with_any_sample_payload() {
+        assertThatCode(() -> JoltSpecification.of(STATIC_SPEC).warmUp("{\"tenant\": null}", 10)).doesNotThrowAnyException();
+        assertThatCode(() -> JoltSpecification.of(STATIC_SPEC).warmUp("not json", 10)).doesNotThrowAnyException();
+        assertThatCode(() -> JoltSpecification.of(EL_SPEC).warmUp(null, 10)).doesNotThrowAnyException();
+    }
+
+    @ParameterizedTest
+    @MethodSource("elementWiseSpecifications")
+    void should_tell_specifications_written_for_array_elements(String spec, boolean elementWise) {
+        assertThat(JoltSpecification.of(spec).isElementWise()).isEqualTo(elementWise);
+    }
+
+    static Stream<Arguments> elementWiseSpecifications() {
+        return Stream.of(
+            Arguments.of("[{\"operation\": \"shift\", \"spec\": {\"_id\": \"id\", \"name\": \"name\"}}]", true),
+            Arguments.of("[{\"operation\": \"shift\", \"spec\": {\"items\": {\"*\": {\"id\": \"ids[&1]\"}}}}]", true),
+            Arguments.of("[{\"operation\": \"remove\", \"spec\": {\"secret|token\": \"\"}}, {\"operation\": \"sort\"}]", true),
+            Arguments.of(STATIC_SPEC, true),
+            Arguments.of(EL_SPEC, true),
+            Arguments.of("[{\"operation\": \"shift\", \"spec\": {\"_id\": \"id\", \"*\": {\"$\": \"&1\"}}}]", false),
+            Arguments.of("[{\"operation\": \"shift\", \"spec\": {\"*\": {\"id\": \"ids[]\"}}}]", false),
+            Arguments.of("[{\"operation\": \"shift\", \"spec\": {\"*\": {\"id\": \"[&1].ref\"}}}]", false),
+            Arguments.of("[{\"operation\": \"shift\", \"spec\": {\"*\": \"list[&]\"}}]", false),
+            Arguments.of("[{\"operation\": \"shift\", \"spec\": {\"0\": \"first\"}}]", false),
+            Arguments.of("[{\"operation\": \"shift\", \"spec\": {\"[0]\": \"first\"}}]", false),
+            Arguments.of("[{\"operation\": \"cardinality\", \"spec\": {\"*\": {\"tags\": \"ONE\"}}}]", false),
+            Arguments.of("[{\"operation\": \"default\", \"spec\": {\"*\": {\"stock\": 0}}}]", false),
+            Arguments.of("[{\"operation\": \"com.example.Custom\", \"spec\": {}}]", false),
+            Arguments.of("[invalid, json, file]", false)
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("unchangedPayloads")
+    void should_tell_payloads_left_unchanged_by_specification(String spec, String payload, boolean unchanged) {
+        var specification = JoltSpecification.of(spec);
+
+        assertThat(specification.leavesUnchanged(Buffer.buffer(payload))).isEqualTo(unchanged);
+        if (unchanged) {
+            var input = JsonUtils.jsonToObject(payload);
+            assertThat(specification.resolveNow(NO_TEMPLATE_ENGINE).transform(input)).isEqualTo(JsonUtils.jsonToObject(payload));
+        }
+    }
+
+    static Stream<Arguments> unchangedPayloads() {
+        var remove = "[{\"operation\": \"remove\", \"spec\": {\"secret|token\": \"\"}}]";
+        var rename = "[{\"operation\": \"shift\", \"spec\": {\"_id\": \"id\", \"*\": \"&\"}}, " + remove.substring(1);
+        return Stream.of(
+            Arguments.of(remove, "{\"id\": 1, \"items\": [{\"secret\": 2}]}", true),
+            Arguments.of(remove, "{}", true),
+            Arguments.of(remove, "{\"id\": 1, \"token\": 2}", false),
+            Arguments.of(remove, "[{\"secret\": 1}]", false),
+            Arguments.of(remove, "{\"id\": 1, \"id\": 2}", false),
+            Arguments.of(remove, "{\"id\": 1 /* comment */}", false),
+            Arguments.of(remove, "{\"id\": ", false),
+            Arguments.of(remove, "{\"id\": 1} garbage", false),
+            Arguments.of(remove, "{\"id\": 1}{\"secret\": 2}", false),
+            Arguments.of(remove, "{\"id\": 1}\n", true),
+            Arguments.of(rename, "{\"id\": 1, \"name\": {\"_id\": 2}}", true),
+            Arguments.of(rename, "{\"_id\": 1}", false),
+            Arguments.of(rename, "{}", false),
+            Arguments.of(STATIC_SPEC, "{\"id\": 1}", false),
+            Arguments.of(EL_SPEC, "{\"id\": 1}", false),
+            Arguments.of("[{\"operation\": \"remove\", \"spec\": {\"*\": \"\"}}]", "{\"id\": 1}", false),
+            Arguments.of("[{\"operation\": \"shift\", \"spec\": {\"_id\": \"id\"}}]", "{\"id\": 1}", false)
+        );
+    }
+}
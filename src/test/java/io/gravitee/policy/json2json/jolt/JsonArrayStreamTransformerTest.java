@@ -0,0 +1,88 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.policy.json2json.jolt;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.bazaarvoice.jolt.Chainr;
+import com.bazaarvoice.jolt.JsonUtils;
+import com.fasterxml.jackson.core.JsonParseException;
+import io.gravitee.gateway.api.buffer.Buffer;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class JsonArrayStreamTransformerTest {
+
+    private static final Chainr CHAINR = Chainr.fromSpec(
+        JsonUtils.jsonToList("[{\"operation\": \"shift\", \"spec\": {\"_id\": \"id\", \"name\": \"label\"}}]")
+    );
+
+    @ParameterizedTest
+    @ValueSource(ints = { 1, 3, 7, 1024 })
+    void should_transform_each_element_of_an_array_whatever_the_chunk_size(int chunkSize) throws Exception {
+        var input =
+            "[ {\"_id\": 1, \"name\": \"a\", \"tags\": [1, {\"x\": null}]}, {\"_id\": \"é2\", \"name\": \"b\"}, /* comment */ {\"_id\": 3.5} ]";
+
+        assertThat(transform(input, chunkSize)).isEqualTo(
+            "[" +
+            JsonUtils.toJsonString(CHAINR.transform(JsonUtils.jsonToObject("{\"_id\": 1, \"name\": \"a\", \"tags\": [1, {\"x\": null}]}"))) +
+            "," +
+            JsonUtils.toJsonString(CHAINR.transform(JsonUtils.jsonToObject("{\"_id\": \"é2\", \"name\": \"b\"}"))) +
+            "," +
+            JsonUtils.toJsonString(CHAINR.transform(JsonUtils.jsonToObject("{\"_id\": 3.5}"))) +
+            "]"
+        );
+    }
+
+    @Test
+    void should_transform_a_document_which_is_not_an_array_as_a_whole() throws Exception {
+        assertThat(transform("{\"_id\": 1, \"name\": \"a\"}", 4)).isEqualTo("{\"id\":1,\"label\":\"a\"}");
+    }
+
+    @Test
+    void should_keep_empty_array_and_empty_document() throws Exception {
+        assertThat(transform(" [ ] ", 1)).isEqualTo("[]");
+        assertThat(transform("", 1)).isEmpty();
+    }
+
+    @Test
+    void should_fail_on_truncated_document() {
+        assertThatThrownBy(() -> transform("[{\"_id\": 1}, {\"_id\"", 3)).isInstanceOf(JsonParseException.class);
+    }
+
+    @Test
+    void should_fail_on_content_after_the_document() {
+        assertThatThrownBy(() -> transform("[] {}", 3)).isInstanceOf(JsonParseException.class);
+    }
+
+    private static String transform(final String input, final int chunkSize) throws Exception {
+        var transformer = JsonCodec.shared().arrayStream(CHAINR::transform);
+        var bytes = input.getBytes(StandardCharsets.UTF_8);
+        var output = Buffer.buffer();
+        for (int offset = 0; offset < bytes.length; offset += chunkSize) {
+            var chunk = new byte[Math.min(chunkSize, bytes.length - offset)];
+            System.arraycopy(bytes, offset, chunk, 0, chunk.length);
+            output.appendBuffer(transformer.onChunk(Buffer.buffer(chunk)));
+        }
+        return output.appendBuffer(transformer.onEnd()).toString();
+    }
+}
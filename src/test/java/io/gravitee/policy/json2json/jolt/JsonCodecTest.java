@@ -0,0 +1,112 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.policy.json2json.jolt;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.bazaarvoice.jolt.JsonUtils;
+import io.gravitee.gateway.api.buffer.Buffer;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class JsonCodecTest {
+
+    private static final String JSON =
+        "{ \"_id\": \"57762dc6ab7d620000000001\", /* comment */ \"name\": \"naïve\", \"count\": 3, \"ratio\": 0.5, \"tags\": [\"a\", null, true] }";
+
+    @Test
+    void should_read_json_like_jolt() throws Exception {
+        assertThat(JsonCodec.shared().read(Buffer.buffer(JSON))).isEqualTo(JsonUtils.jsonToObject(JSON));
+    }
+
+    @Test
+    void should_read_large_and_nested_json_like_jolt() throws Exception {
+        var json = new StringBuilder("[");
+        for (int i = 0; i < 1000; i++) {
+            json
+                .append(i > 0 ? "," : "")
+                .append("{\"id\": ")
+                .append(i)
+                .append(", \"big\": 12345678901234567890, \"nested\": [[")
+                .append(i)
+                .append("]]}");
+        }
+        var input = json.append("]").toString();
+
+        assertThat(JsonCodec.shared().read(Buffer.buffer(input))).isEqualTo(JsonUtils.jsonToObject(input));
+    }
+
+    @Test
+    void should_share_short_string_values_within_a_payload() throws Exception {
+        var json = (List<?>) JsonCodec.shared().read(Buffer.buffer("[{\"status\": \"active\"}, {\"status\": \"active\"}]"));
+
+        assertThat(((Map<?, ?>) json.get(1)).get("status")).isSameAs(((Map<?, ?>) json.get(0)).get("status"));
+    }
+
+    @Test
+    void should_not_retain_string_values_across_payloads() throws Exception {
+        var first = (Map<?, ?>) JsonCodec.shared().read(Buffer.buffer(JSON));
+        var second = (Map<?, ?>) JsonCodec.shared().read(Buffer.buffer(JSON));
+
+        assertThat(second.get("name")).isEqualTo(first.get("name")).isNotSameAs(first.get("name"));
+        assertThat(((List<?>) second.get("tags")).get(0)).isNotSameAs(((List<?>) first.get("tags")).get(0));
+    }
+
+    @Test
+    void should_read_keys_of_specification_as_canonical_instances() throws Exception {
+        var codec = JsonCodec.withKeys(List.of("customer", "items"));
+
+        var json = (Map<?, ?>) codec.read(Buffer.buffer("{\"customer\": {\"items\": []}}"));
+
+        assertThat(json.keySet().iterator().next()).isSameAs("customer");
+        assertThat(((Map<?, ?>) json.get("customer")).keySet().iterator().next()).isSameAs("items");
+        assertThat(json).isEqualTo(JsonCodec.shared().read(Buffer.buffer("{\"customer\": {\"items\": []}}")));
+    }
+
+    @Test
+    void should_fail_to_read_empty_or_invalid_json() throws Exception {
+        assertThatThrownBy(() -> JsonCodec.shared().read(Buffer.buffer("  "))).isInstanceOf(IOException.class);
+        assertThatThrownBy(() -> JsonCodec.shared().read(Buffer.buffer("{\"a\": [1, }"))).isInstanceOf(IOException.class);
+        assertThat(JsonCodec.shared().read(Buffer.buffer("{\"a\": 1}"))).isEqualTo(Map.of("a", 1));
+    }
+
+    @Test
+    void should_write_json_like_jolt() throws Exception {
+        Object json = JsonUtils.jsonToObject(JSON);
+
+        Buffer written = JsonCodec.shared().write(json);
+
+        assertThat(written.toString()).isEqualTo(JsonUtils.toJsonString(json));
+        assertThat(written.length()).isEqualTo(JsonUtils.toJsonString(json).getBytes(StandardCharsets.UTF_8).length);
+    }
+
+    @Test
+    void should_write_successive_payloads_of_any_size() throws Exception {
+        var large = Map.of("value", "x".repeat(ScratchOutputStream.MAX_RETAINED_SIZE));
+        var small = Map.of("value", "y");
+
+        assertThat(JsonCodec.shared().write(small).toString()).isEqualTo("{\"value\":\"y\"}");
+        assertThat(JsonCodec.shared().write(large).length()).isEqualTo(ScratchOutputStream.MAX_RETAINED_SIZE + 12);
+        assertThat(JsonCodec.shared().write(small).toString()).isEqualTo("{\"value\":\"y\"}");
+    }
+}
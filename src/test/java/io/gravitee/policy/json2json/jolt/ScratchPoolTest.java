@@ -0,0 +1,60 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.policy.json2json.jolt;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class ScratchPoolTest {
+
+    private final AtomicInteger created = new AtomicInteger();
+    private final ScratchPool<Object> pool = new ScratchPool<>(() -> {
+        created.incrementAndGet();
+        return new Object();
+    });
+
+    @Test
+    void should_keep_a_scratch_object_per_platform_thread() {
+        var first = pool.acquire();
+        pool.release(first);
+
+        assertThat(pool.acquire()).isSameAs(first);
+        assertThat(created).hasValue(1);
+    }
+
+    @Test
+    void should_reuse_scratch_objects_across_virtual_threads() throws Exception {
+        var first = new AtomicReference<>();
+        var second = new AtomicReference<>();
+
+        Thread.ofVirtual().start(() -> release(first)).join();
+        Thread.ofVirtual().start(() -> release(second)).join();
+
+        assertThat(second.get()).isSameAs(first.get());
+        assertThat(created).hasValue(1);
+    }
+
+    private void release(final AtomicReference<Object> scratch) {
+        scratch.set(pool.acquire());
+        pool.release(scratch.get());
+    }
+}
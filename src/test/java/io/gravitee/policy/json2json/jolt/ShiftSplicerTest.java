@@ -0,0 +1,138 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.policy.json2json.jolt;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.params.provider.Arguments.arguments;
+
+import com.bazaarvoice.jolt.Chainr;
+import com.bazaarvoice.jolt.JsonUtils;
+import io.gravitee.gateway.api.buffer.Buffer;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class ShiftSplicerTest {
+
+    private static final String INPUT =
+        "{'id': 1, 'user': {'name': 'Jo\\u00EBl', 'address': {'city': 'Lille', 'zip': null}, 'tags': ['a', 'b', 'c']}, 'internal': {'secret': 's'}}";
+
+    static Stream<Arguments> specifications() {
+        return Stream.of(
+            arguments(
+                "[{'operation': 'shift', 'spec': {'id': 'ref', 'user': {'name': 'customer.fullName', 'address': {'city': 'customer.city', 'zip': 'customer.zip'}}}}]",
+                INPUT
+            ),
+            arguments("[{'operation': 'shift', 'spec': {'id': ['ref', 'copy.id'], 'missing': 'nowhere', 'user': {'tags': 'labels', 'name': null}}}]", INPUT),
+            arguments("[{'operation': 'shift', 'spec': {'user': 'profile', 'internal': {'secret': 'profile_secret'}}}]", INPUT),
+            arguments("[{'operation': 'shift', 'spec': {'user': {'name': 'name'}}}]", "{'user': null, 'id': 1}"),
+            arguments("[{'operation': 'shift', 'spec': {'missing': 'a'}}]", INPUT),
+            arguments("[{'operation': 'shift', 'spec': {'a': 'b'}}]", "{}")
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("specifications")
+    void should_transform_like_jolt(final String specification, final String input) {
+        final Object spec = JsonUtils.jsonToList(json(specification));
+
+        final Object expected = Chainr.fromSpec(spec).transform(JsonUtils.jsonToObject(json(input)));
+        final Buffer actual = ShiftSplicer.of(spec).splice(Buffer.buffer(json(input)));
+
+        assertThat(JsonUtils.jsonToObject(actual.toString())).isEqualTo(expected);
+    }
+
+    @Test
+    void should_copy_moved_values_byte_for_byte() {
+        final ShiftSplicer splicer = splicer("[{'operation': 'shift', 'spec': {'items': 'data.items', 'total': 'data.count'}}]");
+
+        final Buffer output = splicer.splice(Buffer.buffer(json("{ 'total' : 1.50, 'items': [ {'name': '\\u00E9'} ] }")));
+
+        assertThat(output.toString()).isEqualTo(json("{'data':{'items':[ {'name': '\\u00E9'} ],'count':1.50}}"));
+    }
+
+    @Test
+    void should_splice_content_of_direct_and_sliced_buffers() {
+        final ShiftSplicer splicer = splicer("[{'operation': 'shift', 'spec': {'a': 'b'}}]");
+        final byte[] input = json("xx{'a': [1, 2]}").getBytes(StandardCharsets.UTF_8);
+
+        final ByteBuf direct = Unpooled.directBuffer().writeBytes(input).skipBytes(2);
+        final ByteBuf sliced = Unpooled.wrappedBuffer(input).skipBytes(2);
+
+        assertThat(splicer.splice(Buffer.buffer(direct)).toString()).isEqualTo(json("{'b':[1, 2]}"));
+        assertThat(splicer.splice(Buffer.buffer(sliced)).toString()).isEqualTo(json("{'b':[1, 2]}"));
+    }
+
+    @Test
+    void should_not_depend_on_source_buffer_once_released() {
+        final ShiftSplicer splicer = splicer("[{'operation': 'shift', 'spec': {'a': 'b'}}]");
+        final byte[] input = json("{'a': [1, 2]}").getBytes(StandardCharsets.UTF_8);
+
+        for (ByteBuf source : List.of(
+            Unpooled.wrappedBuffer(input.clone()),
+            PooledByteBufAllocator.DEFAULT.heapBuffer().writeBytes(input),
+            PooledByteBufAllocator.DEFAULT.directBuffer().writeBytes(input)
+        )) {
+            final Buffer output = splicer.splice(Buffer.buffer(source));
+            source.release();
+            // Recycled memory of a pooled buffer is overwritten by the next allocation
+            PooledByteBufAllocator.DEFAULT.heapBuffer().writeZero(input.length).release();
+            PooledByteBufAllocator.DEFAULT.directBuffer().writeZero(input.length).release();
+
+            assertThat(output.toString()).isEqualTo(json("{'b':[1, 2]}"));
+        }
+    }
+
+    @Test
+    void should_leave_payloads_not_spliced_like_jolt_to_the_transformation() {
+        final ShiftSplicer splicer = splicer("[{'operation': 'shift', 'spec': {'user': {'name': 'name'}}}]");
+
+        assertThat(splicer.splice(Buffer.buffer(json("['a']")))).isNull();
+        assertThat(splicer.splice(Buffer.buffer(json("{'user': 'John'}")))).isNull();
+        assertThat(splicer.splice(Buffer.buffer(json("{'user': {'name': 1, 'name': 2}}")))).isNull();
+        assertThat(splicer.splice(Buffer.buffer(json("{'user': {'name': 1 /* comment */}}")))).isNull();
+        assertThat(splicer.splice(Buffer.buffer(json("{'user': {'name': ")))).isNull();
+    }
+
+    @Test
+    void should_only_splice_single_literal_shift() {
+        assertThat(ShiftSplicer.of(JsonUtils.jsonToList(json("[{'operation': 'shift', 'spec': {'*': '&'}}]")))).isNull();
+        assertThat(ShiftSplicer.of(JsonUtils.jsonToList(json("[{'operation': 'default', 'spec': {'a': 1}}]")))).isNull();
+        assertThat(
+            ShiftSplicer.of(
+                JsonUtils.jsonToList(json("[{'operation': 'shift', 'spec': {'a': 'b'}}, {'operation': 'remove', 'spec': {'b': ''}}]"))
+            )
+        ).isNull();
+    }
+
+    private static ShiftSplicer splicer(final String specification) {
+        return ShiftSplicer.of(JsonUtils.jsonToList(json(specification)));
+    }
+
+    private static String json(final String value) {
+        return value.replace('\'', '"');
+    }
+}
@@ -15,6 +15,7 @@
  */
 package io.gravitee.policy.test;
 
+import io.gravitee.common.http.HttpMethod;
 import io.gravitee.common.http.MediaType;
 import io.gravitee.gateway.api.buffer.Buffer;
 import io.gravitee.gateway.api.http.HttpHeaderNames;
@@ -32,6 +33,7 @@ public class RequestBuilder {
     private Buffer body = Buffer.buffer();
     private Flowable<Message> messages = Flowable.empty();
     private final HttpHeaders headers = HttpHeaders.create();
+    private HttpMethod method;
 
     public static RequestBuilder aRequest() {
         return new RequestBuilder();
@@ -59,6 +61,11 @@ public class RequestBuilder {
         return this;
     }
 
+    public RequestBuilder method(HttpMethod method) {
+        this.method = method;
+        return this;
+    }
+
     public RequestBuilder contentType(String contentType) {
         return header(HttpHeaderNames.CONTENT_TYPE, contentType);
     }
@@ -73,6 +80,9 @@ public class RequestBuilder {
         request.body(body);
         request.headers(headers);
         request.messages(messages);
+        if (method != null) {
+            request.method(method);
+        }
         return request;
     }
 